@@ -10,12 +10,15 @@ import org.bukkit.plugin.java.JavaPlugin;
 public class GhastMiscPlugin extends JavaPlugin {
     private ConfigManager configManager;
     private MessageManager messageManager;
+    private GuiManager guiManager;
     private CraftingManager craftingManager;
+    private CraftEngine craftEngine;
     private VoucherManager voucherManager;
     private CommandManager commandManager;
     private AutoCraftManager autoCraftManager;
     private CompactorManager compactorManager;
-    private InventoryLockListener inventoryLockListener;
+    private StorageManager storageManager;
+    private VoucherInventoryLock voucherInventoryLock;
 
     @Override
     public void onEnable() {
@@ -28,13 +31,16 @@ public class GhastMiscPlugin extends JavaPlugin {
         // 1. First load essential configurations
         this.configManager = new ConfigManager(this);
         this.messageManager = new MessageManager(this);
+        this.guiManager = new GuiManager(this);
 
         // 2. Then initialize dependent managers
         this.craftingManager = new CraftingManager(this);
+        this.craftEngine = new CraftEngine(this);
         this.voucherManager = new VoucherManager(this);
         this.commandManager = new CommandManager(this);
         this.autoCraftManager = new AutoCraftManager(this);
         this.compactorManager = new CompactorManager(this);
+        this.storageManager = new StorageManager(this);
 
         // 3. Register commands and events
         registerCommands();
@@ -56,13 +62,18 @@ public class GhastMiscPlugin extends JavaPlugin {
     }
 
     private void registerListeners() {
-        getServer().getPluginManager().registerEvents(new CraftingListener(this), this);
-        getServer().getPluginManager().registerEvents(new VoucherListener(this), this);
+        CraftingListener craftingListener = new CraftingListener(this);
+        VoucherListener voucherListener = new VoucherListener(this);
+        this.voucherInventoryLock = new VoucherInventoryLock();
+
+        getServer().getPluginManager().registerEvents(craftingListener, this);
+        getServer().getPluginManager().registerEvents(voucherListener, this);
         getServer().getPluginManager().registerEvents(new CommandInterceptListener(this), this);
+        getServer().getPluginManager().registerEvents(new InventoryChangeListener(this), this);
 
-        // Store reference to inventory lock listener
-        this.inventoryLockListener = new InventoryLockListener(this);
-        getServer().getPluginManager().registerEvents(inventoryLockListener, this);
+        // All menu clicks, drags and closes go through one router
+        getServer().getPluginManager().registerEvents(
+                new MenuListener(craftingListener, voucherListener, voucherInventoryLock), this);
     }
 
     @Override
@@ -70,6 +81,9 @@ public class GhastMiscPlugin extends JavaPlugin {
         if (autoCraftManager != null) {
             autoCraftManager.stop();
         }
+        if (storageManager != null) {
+            storageManager.shutdown();
+        }
         getLogger().info("GhastMisc has been disabled");
     }
 
@@ -79,10 +93,12 @@ public class GhastMiscPlugin extends JavaPlugin {
         messageManager.reloadMessages();
 
         // Reload all managers
+        guiManager.loadTemplates();
         craftingManager.loadCraftingData();
         voucherManager.loadVoucherData();
         commandManager.loadCommandData();
-        compactorManager.loadCompactorData();
+        storageManager.loadSettings();
+        autoCraftManager.loadSettings();
 
         // Re-register dynamic commands
         commandManager.registerDynamicCommands();
@@ -93,10 +109,13 @@ public class GhastMiscPlugin extends JavaPlugin {
     // Getters
     public ConfigManager getConfigManager() { return configManager; }
     public MessageManager getMessageManager() { return messageManager; }
+    public GuiManager getGuiManager() { return guiManager; }
     public CraftingManager getCraftingManager() { return craftingManager; }
+    public CraftEngine getCraftEngine() { return craftEngine; }
     public VoucherManager getVoucherManager() { return voucherManager; }
     public CommandManager getCommandManager() { return commandManager; }
     public AutoCraftManager getAutoCraftManager() { return autoCraftManager; }
     public CompactorManager getCompactorManager() { return compactorManager; }
-    public InventoryLockListener getInventoryLockListener() { return inventoryLockListener; }
+    public StorageManager getStorageManager() { return storageManager; }
+    public VoucherInventoryLock getVoucherInventoryLock() { return voucherInventoryLock; }
 }
\ No newline at end of file
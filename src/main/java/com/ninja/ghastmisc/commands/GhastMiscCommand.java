@@ -45,7 +45,7 @@ public class GhastMiscCommand implements CommandExecutor, TabCompleter {
             case "commands":
                 return commandHandler.handleCommand(sender, args);
             case "autocraft":
-                return handleAutocraft(sender);
+                return handleAutocraft(sender, args);
             case "onecraft":
                 return handleOneCraft(sender);
             case "compactor":
@@ -75,11 +75,13 @@ public class GhastMiscCommand implements CommandExecutor, TabCompleter {
         sender.sendMessage("§7/gm craft view <id> §8- §fView recipe");
         sender.sendMessage("§7/gm craft editor <id> §8- §fEdit recipe");
         sender.sendMessage("§7/gm autocraft §8- §fToggle auto-crafting");
+        sender.sendMessage("§7/gm autocraft stats §8- §fShow auto-craft pass stats");
         sender.sendMessage("§7/gm onecraft §8- §fCraft item in hand once");
         sender.sendMessage("§7/gm compactor §8- §fOpen compactor GUI");
         sender.sendMessage("");
         sender.sendMessage("§6Voucher System:");
         sender.sendMessage("§7/gm voucher <type> <time> <multiplier> <player> §8- §fGive voucher");
+        sender.sendMessage("§7/gm voucher bulk <type> <time> <multiplier> <players> <amount> §8- §fGive vouchers to many players");
         sender.sendMessage("");
         sender.sendMessage("§6Command System:");
         sender.sendMessage("§7/gm commands list §8- §fList command replacements");
@@ -91,7 +93,17 @@ public class GhastMiscCommand implements CommandExecutor, TabCompleter {
         sender.sendMessage("§7/gm help §8- §fShow this help message");
     }
 
-    private boolean handleAutocraft(CommandSender sender) {
+    private boolean handleAutocraft(CommandSender sender, String[] args) {
+        if (args.length > 1 && args[1].equalsIgnoreCase("stats")) {
+            if (!sender.hasPermission("ghastmisc.admin")) {
+                plugin.getMessageManager().sendMessage(sender, "general.no-permission");
+                return true;
+            }
+
+            plugin.getAutoCraftManager().sendStats(sender);
+            return true;
+        }
+
         if (!(sender instanceof Player)) {
             plugin.getMessageManager().sendMessage(sender, "general.player-only");
             return true;
@@ -203,6 +215,11 @@ public class GhastMiscCommand implements CommandExecutor, TabCompleter {
                 case "command":
                 case "commands":
                     return commandHandler.getTabComplete(sender, args);
+                case "autocraft":
+                    if (args.length == 2 && sender.hasPermission("ghastmisc.admin")) {
+                        completions.add("stats");
+                    }
+                    return completions;
             }
         }
 
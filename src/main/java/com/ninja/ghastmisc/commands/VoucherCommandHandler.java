@@ -3,11 +3,14 @@ package com.ninja.ghastmisc.commands;
 import com.ninja.ghastmisc.GhastMiscPlugin;
 import org.bukkit.Bukkit;
 import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 public class VoucherCommandHandler {
 
@@ -23,19 +26,24 @@ public class VoucherCommandHandler {
             return true;
         }
 
+        if (args.length > 1 && args[1].equalsIgnoreCase("bulk")) {
+            return handleBulk(sender, args);
+        }
+
         if (args.length < 5) {
             sender.sendMessage("§cUsage: /gm voucher <section> <time> <multiplier> <player>");
-            sender.sendMessage("§cSections: levels, essence, money");
+            sender.sendMessage("§cOr: /gm voucher bulk <section> <time> <multiplier> <players> <amount>");
+            sender.sendMessage("§cSections: " + String.join(", ", plugin.getVoucherManager().getVoucherTypeNames()));
             return true;
         }
 
-        String section = args[1].toLowerCase();
+        String section = plugin.getVoucherManager().matchVoucherType(args[1]);
         String timeStr = args[2];
         String multiplierStr = args[3];
         String playerName = args[4];
 
-        if (!Arrays.asList("levels", "essence", "money").contains(section)) {
-            sender.sendMessage("§cInvalid section! Use: levels, essence, money");
+        if (section == null) {
+            sender.sendMessage("§cInvalid section! Use: " + String.join(", ", plugin.getVoucherManager().getVoucherTypeNames()));
             return true;
         }
 
@@ -58,9 +66,102 @@ public class VoucherCommandHandler {
         }
     }
 
+    // /gm voucher bulk <section> <time> <multiplier> <players> <amount>
+    private boolean handleBulk(CommandSender sender, String[] args) {
+        if (args.length < 7) {
+            sender.sendMessage("§cUsage: /gm voucher bulk <section> <time> <multiplier> <players> <amount>");
+            sender.sendMessage("§cPlayers: all, a selector like @a[distance=..50], or name1,name2,...");
+            return true;
+        }
+
+        String section = plugin.getVoucherManager().matchVoucherType(args[2]);
+        if (section == null) {
+            sender.sendMessage("§cInvalid section! Use: " + String.join(", ", plugin.getVoucherManager().getVoucherTypeNames()));
+            return true;
+        }
+
+        int time;
+        double multiplier;
+        int amount;
+        try {
+            time = Integer.parseInt(args[3]);
+            multiplier = Double.parseDouble(args[4]);
+            amount = Integer.parseInt(args[6]);
+        } catch (NumberFormatException e) {
+            plugin.getMessageManager().sendMessage(sender, "general.invalid-amount", "amount", args[3] + ", " + args[4] + " or " + args[6]);
+            return true;
+        }
+
+        if (amount <= 0) {
+            plugin.getMessageManager().sendMessage(sender, "general.invalid-amount", "amount", args[6]);
+            return true;
+        }
+
+        List<Player> players = selectPlayers(sender, args[5]);
+        if (players == null) {
+            return true;
+        }
+        if (players.isEmpty()) {
+            plugin.getMessageManager().sendMessage(sender, "general.player-not-found", "player", args[5]);
+            return true;
+        }
+
+        plugin.getVoucherManager().giveVoucherBulk(sender, players, section, time, multiplier, amount);
+        return true;
+    }
+
+    // Null if the selector is invalid (the sender has been told)
+    private List<Player> selectPlayers(CommandSender sender, String selector) {
+        List<Player> players = new ArrayList<>();
+
+        if (selector.equals("*") || selector.equalsIgnoreCase("all")) {
+            players.addAll(Bukkit.getOnlinePlayers());
+        } else if (selector.startsWith("@")) {
+            try {
+                for (Entity entity : Bukkit.selectEntities(sender, selector)) {
+                    if (entity instanceof Player) {
+                        players.add((Player) entity);
+                    }
+                }
+            } catch (IllegalArgumentException e) {
+                sender.sendMessage("§cInvalid selector: " + selector);
+                return null;
+            }
+        } else {
+            Set<Player> unique = new LinkedHashSet<>();
+            for (String name : selector.split(",")) {
+                Player player = Bukkit.getPlayerExact(name.trim());
+                if (player != null) {
+                    unique.add(player);
+                } else if (!name.trim().isEmpty()) {
+                    plugin.getMessageManager().sendMessage(sender, "general.player-not-found", "player", name.trim());
+                }
+            }
+            players.addAll(unique);
+        }
+
+        return players;
+    }
+
     public List<String> getTabComplete(CommandSender sender, String[] args) {
         if (args.length == 2) {
-            return Arrays.asList("levels", "essence", "money");
+            List<String> options = new ArrayList<>(plugin.getVoucherManager().getVoucherTypeNames());
+            options.add("bulk");
+            return options;
+        }
+
+        if (args.length > 2 && args[1].equalsIgnoreCase("bulk")) {
+            if (args.length == 3) {
+                return new ArrayList<>(plugin.getVoucherManager().getVoucherTypeNames());
+            }
+            if (args.length == 6) {
+                List<String> selectors = new ArrayList<>(Arrays.asList("all", "@a"));
+                for (Player player : Bukkit.getOnlinePlayers()) {
+                    selectors.add(player.getName());
+                }
+                return selectors;
+            }
+            return new ArrayList<>();
         }
 
         if (args.length == 5) {
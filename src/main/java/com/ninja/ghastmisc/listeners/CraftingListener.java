@@ -2,77 +2,62 @@ package com.ninja.ghastmisc.listeners;
 
 import com.ninja.ghastmisc.GhastMiscPlugin;
 import com.ninja.ghastmisc.managers.CraftingManager;
+import com.ninja.ghastmisc.managers.GhastMenuHolder;
+import com.ninja.ghastmisc.managers.GuiLayout;
 import com.ninja.ghastmisc.utils.ItemUtils;
-import com.ninja.ghastmisc.utils.ColorUtils;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
 import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.event.block.Action;
+import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
 import org.bukkit.configuration.ConfigurationSection;
-import org.bukkit.scheduler.BukkitRunnable;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.List;
-import java.util.HashMap;
+import java.util.Set;
 import java.util.UUID;
 
 public class CraftingListener implements Listener {
 
     private final GhastMiscPlugin plugin;
-    private final Map<UUID, BukkitRunnable> craftingTasks = new HashMap<>();
+    // Players whose crafting grid changed since the last result update; drained by one task next tick
+    private final Set<UUID> resultDirty = new HashSet<>();
+    private boolean resultUpdateScheduled = false;
 
     public CraftingListener(GhastMiscPlugin plugin) {
         this.plugin = plugin;
     }
 
-    @EventHandler
-    public void onInventoryClick(InventoryClickEvent event) {
-        if (!(event.getWhoClicked() instanceof Player)) {
-            return;
-        }
-
-        Player player = (Player) event.getWhoClicked();
-        String title = event.getView().getTitle();
-
-        // Get dynamic titles from config
-        String craftingTitle = ColorUtils.colorize(plugin.getConfigManager().getGuiConfig().getString("crafting-gui.title", "§6Custom Crafting Table"));
-        String compactorTitle = ColorUtils.colorize(plugin.getConfigManager().getGuiConfig().getString("compactor-gui.title", "§6Compactor"));
+    void handleCraftingClick(InventoryClickEvent event, Player player, GuiLayout layout) {
+        handleCraftingGUIClick(event, player, layout);
 
-        if (title.equals(craftingTitle)) {
-            handleCraftingGUIClick(event, player);
-        } else if (title.equals(compactorTitle)) {
-            handleCompactorClick(event, player);
-        } else if (title.startsWith("§6Recipe: ")) {
-            handleRecipeViewClick(event, player);
-        } else if (title.startsWith("§6Edit Recipe: ")) {
-            handleRecipeEditorClick(event, player);
+        // Grid clicks, shift-clicks from the player inventory and double-click collects all
+        // can change the grid
+        if (!event.isCancelled()) {
+            markResultDirty(player);
         }
     }
 
-    private void handleCraftingGUIClick(InventoryClickEvent event, Player player) {
+    private void handleCraftingGUIClick(InventoryClickEvent event, Player player, GuiLayout layout) {
         int slot = event.getSlot();
 
         // Check if clicking in the top inventory (crafting GUI)
         if (event.getClickedInventory() == event.getView().getTopInventory()) {
             // Allow interaction with crafting slots and result slot only
-            if (isCraftingSlot(slot) || isResultSlot(slot)) {
+            if (layout.isCraftingInteractive(slot)) {
                 // Process custom crafting
-                if (isResultSlot(slot)) { // Result slot
+                if (layout.isResultSlot(slot)) { // Result slot
                     // Handle result click
-                    processCraftingResult(event, player);
-                } else {
-                    // Start continuous scanning when items are placed/removed in crafting slots
-                    startCraftingScanning(player);
-
-                    // Update crafting result immediately
-                    plugin.getServer().getScheduler().runTaskLater(plugin, () -> {
-                        updateCraftingResult(player, event.getInventory());
-                    }, 1L);
+                    processCraftingResult(event, player, layout);
                 }
                 return;
             } else {
@@ -86,59 +71,59 @@ public class CraftingListener implements Listener {
         // This allows the player to interact with their own inventory freely
     }
 
-    private void startCraftingScanning(Player player) {
-        UUID playerId = player.getUniqueId();
-
-        // Cancel existing task if any
-        BukkitRunnable existingTask = craftingTasks.get(playerId);
-        if (existingTask != null && !existingTask.isCancelled()) {
-            existingTask.cancel();
+    void handleCraftingDrag(InventoryDragEvent event, Player player) {
+        // Only drags that touch the top inventory can change the grid
+        int topSize = event.getView().getTopInventory().getSize();
+        for (int rawSlot : event.getRawSlots()) {
+            if (rawSlot < topSize) {
+                markResultDirty(player);
+                return;
+            }
         }
+    }
 
-        // Start new scanning task
-        BukkitRunnable scanningTask = new BukkitRunnable() {
-            @Override
-            public void run() {
-                if (!player.isOnline()) {
-                    this.cancel();
-                    craftingTasks.remove(playerId);
-                    return;
-                }
+    private void markResultDirty(Player player) {
+        resultDirty.add(player.getUniqueId());
 
-                String currentTitle = player.getOpenInventory().getTitle();
-                String craftingTitle = ColorUtils.colorize(plugin.getConfigManager().getGuiConfig().getString("crafting-gui.title", "§6Custom Crafting Table"));
+        // Any number of changes before the next tick share a single update
+        if (!resultUpdateScheduled) {
+            resultUpdateScheduled = true;
+            plugin.getServer().getScheduler().runTask(plugin, this::drainResultUpdates);
+        }
+    }
 
-                if (!currentTitle.equals(craftingTitle)) {
-                    this.cancel();
-                    craftingTasks.remove(playerId);
-                    return;
-                }
+    private void drainResultUpdates() {
+        resultUpdateScheduled = false;
+        if (resultDirty.isEmpty()) {
+            return;
+        }
 
-                // Update crafting result continuously
-                updateCraftingResult(player, player.getOpenInventory().getTopInventory());
+        List<UUID> players = new ArrayList<>(resultDirty);
+        resultDirty.clear();
+
+        for (UUID playerId : players) {
+            Player player = plugin.getServer().getPlayer(playerId);
+            if (player == null) {
+                continue;
             }
-        };
 
-        scanningTask.runTaskTimer(plugin, 5L, 5L); // Run every 5 ticks (0.25 seconds)
-        craftingTasks.put(playerId, scanningTask);
-    }
+            Inventory top = player.getOpenInventory().getTopInventory();
+            GhastMenuHolder menu = GhastMenuHolder.of(top);
+            if (menu == null || menu.getType() != GhastMenuHolder.MenuType.CRAFTING) {
+                continue;
+            }
 
-    private void stopCraftingScanning(Player player) {
-        UUID playerId = player.getUniqueId();
-        BukkitRunnable task = craftingTasks.get(playerId);
-        if (task != null && !task.isCancelled()) {
-            task.cancel();
+            updateCraftingResult(player, top, menu.getLayout());
         }
-        craftingTasks.remove(playerId);
     }
 
-    private void handleCompactorClick(InventoryClickEvent event, Player player) {
+    void handleCompactorClick(InventoryClickEvent event, Player player, GuiLayout layout) {
         int slot = event.getSlot();
 
         // Check if clicking in the top inventory (compactor GUI)
         if (event.getClickedInventory() == event.getView().getTopInventory()) {
             // Check if it's a compactor slot
-            if (isCompactorSlot(slot)) {
+            if (layout.isCompactorSlot(slot)) {
                 // Handle compactor slot click
                 plugin.getCompactorManager().handleCompactorClick(player, slot, event.getCurrentItem());
                 event.setCancelled(true);
@@ -163,44 +148,22 @@ public class CraftingListener implements Listener {
         }
     }
 
-    private void updateCraftingResult(Player player, org.bukkit.inventory.Inventory inventory) {
+    private void updateCraftingResult(Player player, Inventory inventory, GuiLayout layout) {
+        int resultSlot = layout.getResultSlot();
+
         try {
-            // Get items from crafting grid
-            ItemStack[] craftingGrid = new ItemStack[9];
-
-            // Get crafting slots from config
-            ConfigurationSection guiConfig = plugin.getConfigManager().getGuiConfig();
-            List<Integer> craftingSlots = guiConfig.getIntegerList("crafting-gui.crafting-slots");
-
-            if (craftingSlots.isEmpty()) {
-                // Default crafting slots
-                int[] defaultSlots = {10, 11, 12, 19, 20, 21, 28, 29, 30};
-                for (int i = 0; i < 9; i++) {
-                    craftingGrid[i] = inventory.getItem(defaultSlots[i]);
-                }
-            } else {
-                // Custom crafting slots
-                for (int i = 0; i < Math.min(9, craftingSlots.size()); i++) {
-                    craftingGrid[i] = inventory.getItem(craftingSlots.get(i));
-                }
-            }
+            ItemStack[] craftingGrid = readGrid(inventory, layout);
 
             // Check if this matches any custom recipe
-            String matchedRecipe = findMatchingRecipe(craftingGrid);
-            int resultSlot = guiConfig.getInt("crafting-gui.result-slot", 24);
-
-            if (matchedRecipe != null) {
-                CraftingManager.CraftingRecipe recipe = plugin.getCraftingManager().getCustomRecipes().get(matchedRecipe);
-                if (recipe != null && (recipe.getPermission() == null || player.hasPermission(recipe.getPermission()))) {
-                    // Calculate how many items can be crafted
-                    int maxCraftable = calculateMaxCraftable(craftingGrid, recipe);
-                    if (maxCraftable > 0) {
-                        ItemStack result = recipe.getResult().clone();
-                        result.setAmount(maxCraftable);
-                        inventory.setItem(resultSlot, result);
-                    } else {
-                        inventory.setItem(resultSlot, null);
-                    }
+            CraftingManager.CraftingRecipe recipe = plugin.getCraftingManager().findRecipeByGrid(craftingGrid);
+
+            if (recipe != null && (recipe.getPermission() == null || player.hasPermission(recipe.getPermission()))) {
+                // Calculate how many items can be crafted
+                int maxCraftable = calculateMaxCraftable(craftingGrid, recipe);
+                if (maxCraftable > 0) {
+                    ItemStack result = recipe.getResult().clone();
+                    result.setAmount(maxCraftable);
+                    inventory.setItem(resultSlot, result);
                 } else {
                     inventory.setItem(resultSlot, null);
                 }
@@ -210,11 +173,22 @@ public class CraftingListener implements Listener {
             }
         } catch (Exception e) {
             plugin.getLogger().severe("Error updating crafting result: " + e.getMessage());
-            int resultSlot = plugin.getConfigManager().getGuiConfig().getInt("crafting-gui.result-slot", 24);
             inventory.setItem(resultSlot, null);
         }
     }
 
+    // Reads the 3x3 grid out of the menu; positions the layout does not map stay empty
+    private ItemStack[] readGrid(Inventory inventory, GuiLayout layout) {
+        ItemStack[] craftingGrid = new ItemStack[9];
+        for (int i = 0; i < layout.getGridSize(); i++) {
+            int slot = layout.getCraftingSlot(i);
+            if (layout.isCraftingSlot(slot) && slot < inventory.getSize()) {
+                craftingGrid[i] = inventory.getItem(slot);
+            }
+        }
+        return craftingGrid;
+    }
+
     private int calculateMaxCraftable(ItemStack[] craftingGrid, CraftingManager.CraftingRecipe recipe) {
         int maxCraftable = Integer.MAX_VALUE;
         Map<Integer, CraftingManager.RecipeIngredient> ingredients = recipe.getIngredients();
@@ -238,20 +212,16 @@ public class CraftingListener implements Listener {
         return maxCraftable == Integer.MAX_VALUE ? 0 : maxCraftable;
     }
 
-    private void handleRecipeViewClick(InventoryClickEvent event, Player player) {
-        // Cancel all clicks in recipe view
-        event.setCancelled(true);
-    }
-
-    private void handleRecipeEditorClick(InventoryClickEvent event, Player player) {
+    void handleRecipeEditorClick(InventoryClickEvent event, Player player, GhastMenuHolder menu) {
+        GuiLayout layout = menu.getLayout();
         int slot = event.getSlot();
 
         // Allow interaction with crafting slots and result slot
-        if (isCraftingSlot(slot) || isResultSlot(slot)) {
+        if (layout.isCraftingInteractive(slot)) {
             // Update result when crafting grid changes
-            if (!isResultSlot(slot)) {
+            if (!layout.isResultSlot(slot)) {
                 plugin.getServer().getScheduler().runTaskLater(plugin, () -> {
-                    updateCraftingResult(player, event.getInventory());
+                    updateCraftingResult(player, event.getInventory(), layout);
                 }, 1L);
             }
             return;
@@ -266,8 +236,7 @@ public class CraftingListener implements Listener {
         }
 
         if (slot == 44) { // Save button
-            String recipeId = event.getView().getTitle().replace("§6Edit Recipe: ", "");
-            saveRecipeFromEditor(player, event.getInventory(), recipeId);
+            saveRecipeFromEditor(player, event.getInventory(), menu.getRecipeId());
             plugin.getMessageManager().sendMessage(player, "crafting.recipe-saved");
             player.closeInventory();
             event.setCancelled(true);
@@ -278,135 +247,20 @@ public class CraftingListener implements Listener {
         event.setCancelled(true);
     }
 
-    private boolean isCraftingSlot(int slot) {
-        ConfigurationSection guiConfig = plugin.getConfigManager().getGuiConfig();
-        List<Integer> craftingSlots = guiConfig.getIntegerList("crafting-gui.crafting-slots");
-
-        if (craftingSlots.isEmpty()) {
-            // Default crafting slots
-            return (slot >= 10 && slot <= 12) || (slot >= 19 && slot <= 21) || (slot >= 28 && slot <= 30);
-        }
-
-        return craftingSlots.contains(slot);
-    }
-
-    private boolean isResultSlot(int slot) {
-        ConfigurationSection guiConfig = plugin.getConfigManager().getGuiConfig();
-        int resultSlot = guiConfig.getInt("crafting-gui.result-slot", 24);
-        return slot == resultSlot;
-    }
-
-    private boolean isCompactorSlot(int slot) {
-        ConfigurationSection guiConfig = plugin.getConfigManager().getGuiConfig();
-        List<Integer> compactorSlots = guiConfig.getIntegerList("compactor-gui.compactor-slots");
-
-        if (compactorSlots.isEmpty()) {
-            // Default compactor slots
-            return slot >= 19 && slot <= 25;
-        }
-
-        return compactorSlots.contains(slot);
-    }
-
-    private void processCraftingResult(InventoryClickEvent event, Player player) {
-        // Get items from crafting grid
-        ItemStack[] craftingGrid = new ItemStack[9];
-
-        // Get crafting slots from config
-        ConfigurationSection guiConfig = plugin.getConfigManager().getGuiConfig();
-        List<Integer> craftingSlots = guiConfig.getIntegerList("crafting-gui.crafting-slots");
-
-        if (craftingSlots.isEmpty()) {
-            // Default crafting slots
-            int[] defaultSlots = {10, 11, 12, 19, 20, 21, 28, 29, 30};
-            for (int i = 0; i < 9; i++) {
-                craftingGrid[i] = event.getInventory().getItem(defaultSlots[i]);
-            }
-        } else {
-            // Custom crafting slots
-            for (int i = 0; i < Math.min(9, craftingSlots.size()); i++) {
-                craftingGrid[i] = event.getInventory().getItem(craftingSlots.get(i));
-            }
-        }
+    private void processCraftingResult(InventoryClickEvent event, Player player, GuiLayout layout) {
+        ItemStack[] craftingGrid = readGrid(event.getInventory(), layout);
 
         // Check if this matches any custom recipe
-        String matchedRecipe = findMatchingRecipe(craftingGrid);
+        CraftingManager.CraftingRecipe matchedRecipe = plugin.getCraftingManager().findRecipeByGrid(craftingGrid);
         if (matchedRecipe != null) {
             // Process custom recipe
-            processCustomRecipe(event, player, matchedRecipe, craftingGrid);
+            processCustomRecipe(event, player, layout, matchedRecipe, craftingGrid);
         }
         // If no custom recipe matches, allow vanilla crafting to proceed
     }
 
-    private String findMatchingRecipe(ItemStack[] craftingGrid) {
-        // Check each custom recipe to see if it matches the current crafting grid
-        for (String recipeId : plugin.getCraftingManager().getCustomRecipes().keySet()) {
-            if (matchesRecipe(craftingGrid, recipeId)) {
-                return recipeId;
-            }
-        }
-        return null;
-    }
-
-    private boolean matchesRecipe(ItemStack[] craftingGrid, String recipeId) {
-        CraftingManager.CraftingRecipe recipe = plugin.getCraftingManager().getCustomRecipes().get(recipeId);
-        if (recipe == null) {
-            return false;
-        }
-
-        Map<Integer, CraftingManager.RecipeIngredient> ingredients = recipe.getIngredients();
-
-        // Check each slot in the recipe
-        for (int slot = 1; slot <= 9; slot++) {
-            ItemStack gridItem = craftingGrid[slot - 1];
-            CraftingManager.RecipeIngredient requiredIngredient = ingredients.get(slot);
-
-            if (requiredIngredient == null) {
-                // No ingredient required in this slot
-                if (gridItem != null && gridItem.getType() != Material.AIR) {
-                    return false; // But there's an item here
-                }
-            } else {
-                // Ingredient required in this slot
-                if (gridItem == null || gridItem.getType() == Material.AIR) {
-                    return false; // But slot is empty
-                }
-
-                if (!matchesIngredient(gridItem, requiredIngredient)) {
-                    return false; // Item doesn't match required ingredient
-                }
-
-                if (gridItem.getAmount() < requiredIngredient.getAmount()) {
-                    return false; // Not enough items
-                }
-            }
-        }
-
-        return true;
-    }
-
-    private boolean matchesIngredient(ItemStack item, CraftingManager.RecipeIngredient ingredient) {
-        if (ingredient.isCustom()) {
-            // Check if it's a custom ingredient
-            return ItemUtils.isCustomItem(item, ingredient.getName());
-        } else {
-            // Check if it's a vanilla material and NOT a custom item
-            try {
-                Material material = Material.valueOf(ingredient.getName().toUpperCase());
-                return item.getType() == material && !ItemUtils.isCustomItem(item);
-            } catch (IllegalArgumentException e) {
-                return false;
-            }
-        }
-    }
-
-    private void processCustomRecipe(InventoryClickEvent event, Player player, String recipeId, ItemStack[] craftingGrid) {
-        CraftingManager.CraftingRecipe recipe = plugin.getCraftingManager().getCustomRecipes().get(recipeId);
-        if (recipe == null) {
-            event.setCancelled(true);
-            return;
-        }
-
+    private void processCustomRecipe(InventoryClickEvent event, Player player, GuiLayout layout,
+                                     CraftingManager.CraftingRecipe recipe, ItemStack[] craftingGrid) {
         // Check permission
         if (recipe.getPermission() != null && !player.hasPermission(recipe.getPermission())) {
             plugin.getMessageManager().sendMessage(player, "crafting.no-permission-craft");
@@ -414,6 +268,12 @@ public class CraftingListener implements Listener {
             return;
         }
 
+        // Shift-click crafts everything the grid allows straight into the player inventory
+        if (event.isShiftClick()) {
+            craftAll(event, player, layout, recipe, craftingGrid);
+            return;
+        }
+
         // Get the result item from the result slot
         ItemStack resultSlotItem = event.getCurrentItem();
         if (resultSlotItem == null || resultSlotItem.getType() == Material.AIR) {
@@ -444,9 +304,6 @@ public class CraftingListener implements Listener {
         }
 
         // Remove ingredients from crafting grid
-        ConfigurationSection guiConfig = plugin.getConfigManager().getGuiConfig();
-        List<Integer> craftingSlots = guiConfig.getIntegerList("crafting-gui.crafting-slots");
-
         Map<Integer, CraftingManager.RecipeIngredient> ingredients = recipe.getIngredients();
         for (Map.Entry<Integer, CraftingManager.RecipeIngredient> entry : ingredients.entrySet()) {
             int slot = entry.getKey();
@@ -457,8 +314,7 @@ public class CraftingListener implements Listener {
                 int totalNeeded = ingredient.getAmount() * craftAmount;
                 int newAmount = gridItem.getAmount() - totalNeeded;
                 if (newAmount <= 0) {
-                    int guiSlot = craftingSlots.isEmpty() ? convertSlotToGUI(slot) : craftingSlots.get(slot - 1);
-                    event.getInventory().setItem(guiSlot, null);
+                    event.getInventory().setItem(layout.getCraftingSlot(slot - 1), null);
                 } else {
                     gridItem.setAmount(newAmount);
                 }
@@ -473,8 +329,7 @@ public class CraftingListener implements Listener {
         }
 
         // Clear result slot
-        int resultSlot = guiConfig.getInt("crafting-gui.result-slot", 24);
-        event.getInventory().setItem(resultSlot, null);
+        event.getInventory().setItem(layout.getResultSlot(), null);
 
         // Execute effects if any
         executeItemEffects(player, recipe, "CRAFT");
@@ -482,25 +337,55 @@ public class CraftingListener implements Listener {
         event.setCancelled(true);
 
         // Update crafting result after processing
-        plugin.getServer().getScheduler().runTaskLater(plugin, () -> {
-            updateCraftingResult(player, event.getInventory());
-        }, 1L);
+        markResultDirty(player);
     }
 
-    private int convertSlotToGUI(int craftingSlot) {
-        // Convert crafting slot (1-9) to GUI slot
-        switch (craftingSlot) {
-            case 1: return 10;
-            case 2: return 11;
-            case 3: return 12;
-            case 4: return 19;
-            case 5: return 20;
-            case 6: return 21;
-            case 7: return 28;
-            case 8: return 29;
-            case 9: return 30;
-            default: return 0;
+    private void craftAll(InventoryClickEvent event, Player player, GuiLayout layout,
+                          CraftingManager.CraftingRecipe recipe, ItemStack[] craftingGrid) {
+        event.setCancelled(true);
+
+        int maxCraftable = calculateMaxCraftable(craftingGrid, recipe);
+        if (maxCraftable <= 0) {
+            return;
+        }
+
+        // Plan where every result goes before touching the grid; whatever does not fit is never crafted
+        PlayerInventory playerInventory = player.getInventory();
+        ItemStack[] contents = playerInventory.getStorageContents();
+        int craftAmount = ItemUtils.addToContents(contents, recipe.getResult(), maxCraftable);
+
+        if (craftAmount <= 0) {
+            plugin.getMessageManager().sendMessage(player, "crafting.inventory-full");
+            return;
+        }
+
+        // Remove ingredients for all crafts in one pass over the grid
+        for (Map.Entry<Integer, CraftingManager.RecipeIngredient> entry : recipe.getIngredients().entrySet()) {
+            int slot = entry.getKey();
+            ItemStack gridItem = craftingGrid[slot - 1];
+            int newAmount = gridItem.getAmount() - entry.getValue().getAmount() * craftAmount;
+
+            if (newAmount <= 0) {
+                event.getInventory().setItem(layout.getCraftingSlot(slot - 1), null);
+            } else {
+                gridItem.setAmount(newAmount);
+            }
+        }
+
+        playerInventory.setStorageContents(contents);
+        plugin.getAutoCraftManager().markDirty(player.getUniqueId());
+
+        if (craftAmount < maxCraftable) {
+            plugin.getMessageManager().sendMessage(player, "crafting.craft-all-partial", "amount", String.valueOf(craftAmount));
         }
+
+        // Clear result slot
+        event.getInventory().setItem(layout.getResultSlot(), null);
+
+        // Execute effects if any
+        executeItemEffects(player, recipe, "CRAFT");
+
+        markResultDirty(player);
     }
 
     private void executeItemEffects(Player player, CraftingManager.CraftingRecipe recipe, String action) {
@@ -536,7 +421,7 @@ public class CraftingListener implements Listener {
         }
     }
 
-    private void saveRecipeFromEditor(Player player, org.bukkit.inventory.Inventory inventory, String recipeId) {
+    private void saveRecipeFromEditor(Player player, Inventory inventory, String recipeId) {
         try {
             ConfigurationSection recipesSection = plugin.getConfigManager().getCraftingConfig().getConfigurationSection("recipes");
             if (recipesSection == null) {
@@ -597,6 +482,12 @@ public class CraftingListener implements Listener {
             return customId + ":" + item.getAmount();
         }
 
+        // Check if it's the result of another custom recipe
+        String recipeId = ItemUtils.getRecipeId(item);
+        if (recipeId != null) {
+            return recipeId + ":" + item.getAmount();
+        }
+
         // Check if it's a vanilla material (not custom)
         if (!ItemUtils.isCustomItem(item)) {
             return item.getType().name() + ":" + item.getAmount();
@@ -632,20 +523,14 @@ public class CraftingListener implements Listener {
         ItemUtils.addCustomData(item, "item_id", newId);
     }
 
-    private void returnCraftingItems(Player player, org.bukkit.inventory.Inventory inventory) {
-        ConfigurationSection guiConfig = plugin.getConfigManager().getGuiConfig();
-        List<Integer> craftingSlots = guiConfig.getIntegerList("crafting-gui.crafting-slots");
-
-        // Get crafting slots to check
-        int[] slotsToCheck;
-        if (craftingSlots.isEmpty()) {
-            slotsToCheck = new int[]{10, 11, 12, 19, 20, 21, 28, 29, 30};
-        } else {
-            slotsToCheck = craftingSlots.stream().mapToInt(Integer::intValue).toArray();
-        }
-
+    private void returnCraftingItems(Player player, Inventory inventory, GuiLayout layout) {
         // Return items from crafting slots to player
-        for (int slot : slotsToCheck) {
+        for (int i = 0; i < layout.getGridSize(); i++) {
+            int slot = layout.getCraftingSlot(i);
+            if (!layout.isCraftingSlot(slot) || slot >= inventory.getSize()) {
+                continue;
+            }
+
             ItemStack item = inventory.getItem(slot);
             if (item != null && item.getType() != Material.AIR) {
                 // Try to add to player inventory
@@ -660,28 +545,12 @@ public class CraftingListener implements Listener {
         }
     }
 
-    @EventHandler
-    public void onInventoryClose(InventoryCloseEvent event) {
-        if (!(event.getPlayer() instanceof Player)) {
-            return;
-        }
-
-        Player player = (Player) event.getPlayer();
-        String title = event.getView().getTitle();
-
-        // Get dynamic titles from config for consistency
-        String craftingTitle = ColorUtils.colorize(plugin.getConfigManager().getGuiConfig().getString("crafting-gui.title", "§6Custom Crafting Table"));
-        String compactorTitle = ColorUtils.colorize(plugin.getConfigManager().getGuiConfig().getString("compactor-gui.title", "§6Compactor"));
-
-        if (title.equals(craftingTitle)) {
-            // Stop crafting scanning
-            stopCraftingScanning(player);
+    void handleCraftingClose(InventoryCloseEvent event, Player player, GuiLayout layout) {
+        // Drop any pending result update
+        resultDirty.remove(player.getUniqueId());
 
-            // Return items from crafting slots to player
-            returnCraftingItems(player, event.getInventory());
-
-
-        }
+        // Return items from crafting slots to player
+        returnCraftingItems(player, event.getInventory(), layout);
     }
 
     @EventHandler
@@ -701,7 +570,7 @@ public class CraftingListener implements Listener {
             // Check if it's a custom recipe result with RIGHT_CLICK effects
             String recipeId = ItemUtils.getRecipeId(item);
             if (recipeId != null) {
-                CraftingManager.CraftingRecipe recipe = plugin.getCraftingManager().getCustomRecipes().get(recipeId);
+                CraftingManager.CraftingRecipe recipe = plugin.getCraftingManager().getRecipe(recipeId);
                 if (recipe != null) {
                     executeItemEffects(player, recipe, "RIGHT_CLICK");
                 }
@@ -0,0 +1,121 @@
+package com.ninja.ghastmisc.listeners;
+
+import com.ninja.ghastmisc.GhastMiscPlugin;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.EntityPickupItemEvent;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
+import org.bukkit.event.inventory.InventoryMoveItemEvent;
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.event.player.PlayerCommandPreprocessEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.server.RemoteServerCommandEvent;
+import org.bukkit.event.server.ServerCommandEvent;
+import org.bukkit.inventory.Inventory;
+
+import java.util.UUID;
+
+// Marks players dirty for auto-crafting whenever their inventory may have changed
+public class InventoryChangeListener implements Listener {
+
+    private final GhastMiscPlugin plugin;
+    // A re-check of every online player is already scheduled for the next tick
+    private boolean recheckScheduled = false;
+
+    public InventoryChangeListener(GhastMiscPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onItemPickup(EntityPickupItemEvent event) {
+        if (event.getEntity() instanceof Player) {
+            markDirty((Player) event.getEntity());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onInventoryClick(InventoryClickEvent event) {
+        if (event.getWhoClicked() instanceof Player) {
+            markDirty((Player) event.getWhoClicked());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onInventoryDrag(InventoryDragEvent event) {
+        if (event.getWhoClicked() instanceof Player) {
+            markDirty((Player) event.getWhoClicked());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onInventoryMoveItem(InventoryMoveItemEvent event) {
+        // Check the type first - getHolder() on block inventories is expensive
+        markDirtyIfPlayerInventory(event.getDestination());
+        markDirtyIfPlayerInventory(event.getSource());
+    }
+
+    // Any command may hand out or take items (/give and its aliases, kits, plugin item commands),
+    // whether it comes from a player, the console, RCON or a command block
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerCommand(PlayerCommandPreprocessEvent event) {
+        scheduleRecheck();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onServerCommand(ServerCommandEvent event) {
+        scheduleRecheck();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onRemoteServerCommand(RemoteServerCommandEvent event) {
+        scheduleRecheck();
+    }
+
+    @EventHandler
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        // Compactor selections and the autocraft toggle arrive asynchronously and schedule the player
+        plugin.getStorageManager().loadPlayer(event.getPlayer());
+        markDirty(event.getPlayer());
+        plugin.getAutoCraftManager().scheduleIfActive(event.getPlayer());
+    }
+
+    @EventHandler
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        UUID playerId = event.getPlayer().getUniqueId();
+
+        // Save before the managers forget the player
+        plugin.getStorageManager().handleQuit(playerId);
+        plugin.getCompactorManager().handleQuit(playerId);
+        plugin.getAutoCraftManager().handleQuit(playerId);
+        plugin.getVoucherManager().handleQuit(playerId);
+    }
+
+    // The command only runs after these events, so everyone is marked on the next tick;
+    // any number of commands within one tick share a single re-check
+    private void scheduleRecheck() {
+        if (recheckScheduled) {
+            return;
+        }
+
+        recheckScheduled = true;
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            recheckScheduled = false;
+            plugin.getAutoCraftManager().markAllDirty();
+        });
+    }
+
+    private void markDirtyIfPlayerInventory(Inventory inventory) {
+        if (inventory.getType() == InventoryType.PLAYER && inventory.getHolder() instanceof Player) {
+            markDirty((Player) inventory.getHolder());
+        }
+    }
+
+    private void markDirty(Player player) {
+        plugin.getAutoCraftManager().markDirty(player.getUniqueId());
+    }
+}
@@ -0,0 +1,98 @@
+package com.ninja.ghastmisc.listeners;
+
+import com.ninja.ghastmisc.managers.GhastMenuHolder;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
+
+// Single entry point for clicks, drags and closes in GhastMisc menus. Any other inventory is
+// rejected by the holder check before any per-menu work is done.
+public class MenuListener implements Listener {
+
+    private final CraftingListener craftingListener;
+    private final VoucherListener voucherListener;
+    private final VoucherInventoryLock voucherInventoryLock;
+
+    public MenuListener(CraftingListener craftingListener, VoucherListener voucherListener,
+                        VoucherInventoryLock voucherInventoryLock) {
+        this.craftingListener = craftingListener;
+        this.voucherListener = voucherListener;
+        this.voucherInventoryLock = voucherInventoryLock;
+    }
+
+    @EventHandler(priority = EventPriority.HIGH)
+    public void onInventoryClick(InventoryClickEvent event) {
+        GhastMenuHolder menu = GhastMenuHolder.of(event.getView().getTopInventory());
+        if (menu == null || !(event.getWhoClicked() instanceof Player)) {
+            return;
+        }
+
+        Player player = (Player) event.getWhoClicked();
+
+        switch (menu.getType()) {
+            case CRAFTING:
+                craftingListener.handleCraftingClick(event, player, menu.getLayout());
+                break;
+            case COMPACTOR:
+                craftingListener.handleCompactorClick(event, player, menu.getLayout());
+                break;
+            case RECIPE_VIEW:
+                // Recipe view is read-only
+                event.setCancelled(true);
+                break;
+            case RECIPE_EDITOR:
+                craftingListener.handleRecipeEditorClick(event, player, menu);
+                break;
+            case VOUCHER_CONFIRM:
+                voucherInventoryLock.handleClick(event, player);
+                voucherListener.handleVoucherConfirmation(event, player, menu);
+                break;
+        }
+    }
+
+    @EventHandler(priority = EventPriority.HIGH)
+    public void onInventoryDrag(InventoryDragEvent event) {
+        GhastMenuHolder menu = GhastMenuHolder.of(event.getView().getTopInventory());
+        if (menu == null || !(event.getWhoClicked() instanceof Player)) {
+            return;
+        }
+
+        switch (menu.getType()) {
+            case CRAFTING:
+                craftingListener.handleCraftingDrag(event, (Player) event.getWhoClicked());
+                break;
+            case VOUCHER_CONFIRM:
+                // Nothing may be dragged in or out of the confirmation menu
+                event.setCancelled(true);
+                break;
+            default:
+                break;
+        }
+    }
+
+    @EventHandler
+    public void onInventoryClose(InventoryCloseEvent event) {
+        GhastMenuHolder menu = GhastMenuHolder.of(event.getView().getTopInventory());
+        if (menu == null || !(event.getPlayer() instanceof Player)) {
+            return;
+        }
+
+        Player player = (Player) event.getPlayer();
+
+        switch (menu.getType()) {
+            case CRAFTING:
+                craftingListener.handleCraftingClose(event, player, menu.getLayout());
+                break;
+            case VOUCHER_CONFIRM:
+                // Unlock player inventory when closing voucher confirmation
+                voucherInventoryLock.unlockInventory(player.getUniqueId());
+                break;
+            default:
+                break;
+        }
+    }
+}
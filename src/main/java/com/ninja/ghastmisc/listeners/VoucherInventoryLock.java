@@ -0,0 +1,36 @@
+package com.ninja.ghastmisc.listeners;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryType;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+// Lock state for the voucher confirmation menu; MenuListener routes the menu's clicks here
+public class VoucherInventoryLock {
+
+    private final Map<UUID, Boolean> lockedInventories = new HashMap<>();
+
+    // Called by MenuListener for clicks in the voucher confirmation menu
+    void handleClick(InventoryClickEvent event, Player player) {
+        // Only lock the player inventory while a confirmation is pending
+        if (isLockedInventory(player.getUniqueId()) && event.getClickedInventory() != null
+                && event.getClickedInventory().getType() == InventoryType.PLAYER) {
+            event.setCancelled(true);
+        }
+    }
+
+    public void lockInventory(UUID playerId) {
+        lockedInventories.put(playerId, true);
+    }
+
+    public void unlockInventory(UUID playerId) {
+        lockedInventories.remove(playerId);
+    }
+
+    public boolean isLockedInventory(UUID playerId) {
+        return lockedInventories.getOrDefault(playerId, false);
+    }
+}
\ No newline at end of file
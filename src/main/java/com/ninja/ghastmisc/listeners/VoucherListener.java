@@ -1,7 +1,7 @@
 package com.ninja.ghastmisc.listeners;
 
 import com.ninja.ghastmisc.GhastMiscPlugin;
-import com.ninja.ghastmisc.utils.ColorUtils;
+import com.ninja.ghastmisc.managers.GhastMenuHolder;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
@@ -10,15 +10,17 @@ import org.bukkit.event.Listener;
 import org.bukkit.event.block.Action;
 import org.bukkit.event.block.BlockPlaceEvent;
 import org.bukkit.event.inventory.InventoryClickEvent;
-import org.bukkit.event.inventory.InventoryDragEvent;
 import org.bukkit.event.inventory.InventoryMoveItemEvent;
-import org.bukkit.event.inventory.InventoryCloseEvent;
 import org.bukkit.event.player.PlayerDropItemEvent;
 import org.bukkit.event.player.PlayerInteractEvent;
+import org.bukkit.inventory.EquipmentSlot;
 import org.bukkit.inventory.ItemStack;
 
 public class VoucherListener implements Listener {
 
+    // Index of the off hand in PlayerInventory
+    private static final int OFF_HAND_SLOT = 40;
+
     private final GhastMiscPlugin plugin;
 
     public VoucherListener(GhastMiscPlugin plugin) {
@@ -42,8 +44,9 @@ public class VoucherListener implements Listener {
         if (plugin.getVoucherManager().isVoucher(item)) {
             event.setCancelled(true);
 
-            // Handle voucher use
-            plugin.getVoucherManager().handleVoucherUse(player, item);
+            // Handle voucher use; the slot lets confirmation find this exact stack again
+            int slot = event.getHand() == EquipmentSlot.OFF_HAND ? OFF_HAND_SLOT : player.getInventory().getHeldItemSlot();
+            plugin.getVoucherManager().handleVoucherUse(player, item, slot);
         }
     }
 
@@ -69,30 +72,6 @@ public class VoucherListener implements Listener {
         }
     }
 
-    @EventHandler
-    public void onInventoryClick(InventoryClickEvent event) {
-        if (!(event.getWhoClicked() instanceof Player)) {
-            return;
-        }
-
-        Player player = (Player) event.getWhoClicked();
-        String title = event.getView().getTitle();
-
-        if (title.equals("§6Confirm Voucher Use")) {
-            handleVoucherConfirmation(event, player);
-        }
-    }
-
-    @EventHandler(priority = EventPriority.HIGH)
-    public void onInventoryDrag(InventoryDragEvent event) {
-        String title = event.getView().getTitle();
-
-        // Prevent dragging in voucher confirmation GUI
-        if (title.equals("§6Confirm Voucher Use")) {
-            event.setCancelled(true);
-        }
-    }
-
     @EventHandler(priority = EventPriority.HIGH)
     public void onInventoryMoveItem(InventoryMoveItemEvent event) {
         ItemStack item = event.getItem();
@@ -103,23 +82,14 @@ public class VoucherListener implements Listener {
         }
     }
 
-    @EventHandler
-    public void onInventoryClose(InventoryCloseEvent event) {
-        if (!(event.getPlayer() instanceof Player)) {
-            return;
-        }
-
-        Player player = (Player) event.getPlayer();
-        String title = event.getView().getTitle();
+    // Confirm and cancel buttons of the confirmation menu; routed here by MenuListener
+    void handleVoucherConfirmation(InventoryClickEvent event, Player player, GhastMenuHolder menu) {
+        event.setCancelled(true);
 
-        if (title.equals("§6Confirm Voucher Use")) {
-            // Unlock player inventory when closing voucher confirmation
-            plugin.getInventoryLockListener().unlockInventory(player.getUniqueId());
+        // Buttons only live in the menu itself, not in the player's inventory
+        if (event.getClickedInventory() != event.getView().getTopInventory()) {
+            return;
         }
-    }
-
-    private void handleVoucherConfirmation(InventoryClickEvent event, Player player) {
-        event.setCancelled(true);
 
         int slot = event.getSlot();
         ItemStack clickedItem = event.getCurrentItem();
@@ -132,7 +102,7 @@ public class VoucherListener implements Listener {
             // Confirm button clicked
             ItemStack voucher = event.getInventory().getItem(22);
             if (voucher != null && plugin.getVoucherManager().isVoucher(voucher)) {
-                plugin.getVoucherManager().confirmVoucherUse(player, voucher);
+                plugin.getVoucherManager().confirmVoucherUse(player, voucher, menu.getSourceSlot());
             } else {
                 plugin.getMessageManager().sendMessage(player, "voucher.invalid");
                 player.closeInventory();
@@ -3,22 +3,96 @@ package com.ninja.ghastmisc.managers;
 import com.ninja.ghastmisc.GhastMiscPlugin;
 import com.ninja.ghastmisc.utils.ItemUtils;
 import org.bukkit.Bukkit;
+import org.bukkit.command.CommandSender;
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.scheduler.BukkitRunnable;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class AutoCraftManager {
 
     private final GhastMiscPlugin plugin;
     private final Map<UUID, Boolean> autoCraftEnabled = new HashMap<>();
+    // Players whose stored data is still loading and who have not toggled autocraft since it started
+    private final Set<UUID> loadingToggles = new HashSet<>();
+    private final Set<UUID> dirtyPlayers = new HashSet<>();
     private BukkitRunnable autoCraftTask;
 
+    // Players are spread over interval-ticks buckets by UUID hash; due players wait in the
+    // work queue until the per-tick budget allows processing them
+    private List<Set<UUID>> buckets = new ArrayList<>();
+    private final Deque<UUID> workQueue = new ArrayDeque<>();
+    private final Set<UUID> queued = new HashSet<>();
+    private long currentTick = 0;
+
+    // Async planning: the main thread snapshots inventories, workers plan, the main thread applies.
+    // The version is bumped by markDirty so a plan made from an outdated snapshot is never applied.
+    private ExecutorService planner;
+    private final Map<UUID, Long> inventoryVersions = new HashMap<>();
+    private final Set<UUID> planning = new HashSet<>();
+    private final Queue<PlanResult> completedPlans = new ConcurrentLinkedQueue<>();
+    // Bumped whenever the pool is replaced; results from an older pool's tasks are dropped
+    private int plannerGeneration = 0;
+
+    // Settings (crafting.yml -> autocraft)
+    private boolean eventDriven = true;
+    private int maxCascadeIterations = 8;
+    private int intervalTicks = 60;
+    private long tickBudgetNanos = 2_000_000L;
+    private boolean asyncPlanning = true;
+    private int plannerThreads = 2;
+
+    // Pass counters since last enable
+    private long passesRun = 0;
+    private long passesSkipped = 0;
+    private long ticksOverBudget = 0;
+    private long plansApplied = 0;
+    private long plansStale = 0;
+
     public AutoCraftManager(GhastMiscPlugin plugin) {
         this.plugin = plugin;
+        loadSettings();
+    }
+
+    public void loadSettings() {
+        ConfigurationSection settings = plugin.getConfigManager().getCraftingConfig().getConfigurationSection("autocraft");
+        eventDriven = settings == null || settings.getBoolean("event-driven", true);
+        maxCascadeIterations = Math.max(1, settings == null ? 8 : settings.getInt("max-cascade-iterations", 8));
+        tickBudgetNanos = Math.max(0L, settings == null ? 2_000_000L : settings.getLong("tick-budget-nanos", 2_000_000L));
+
+        asyncPlanning = settings == null || settings.getBoolean("async-planning", true);
+        int newThreads = Math.max(1, settings == null ? 2 : settings.getInt("planner-threads", 2));
+        if (newThreads != plannerThreads) {
+            plannerThreads = newThreads;
+            if (planner != null) {
+                startPlanner();
+            }
+        }
+
+        int newInterval = Math.max(1, settings == null ? 60 : settings.getInt("interval-ticks", 60));
+        if (newInterval != intervalTicks || buckets.isEmpty()) {
+            intervalTicks = newInterval;
+            rebuildSchedule();
+        }
+
+        // Settings may have changed what is craftable, so re-check everyone once
+        markAllDirty();
     }
 
     public void start() {
@@ -26,12 +100,14 @@ public class AutoCraftManager {
             autoCraftTask.cancel();
         }
 
+        rebuildSchedule();
+        startPlanner();
+
         autoCraftTask = new BukkitRunnable() {
             @Override
             public void run() {
                 try {
-                    processAutoCraft();
-                    processCompactorAutoCraft();
+                    processTick();
                 } catch (Exception e) {
                     plugin.getLogger().severe("Error in auto-craft task: " + e.getMessage());
                     e.printStackTrace();
@@ -39,7 +115,8 @@ public class AutoCraftManager {
             }
         };
 
-        autoCraftTask.runTaskTimer(plugin, 60L, 60L); // Every 3 seconds (60 ticks)
+        // Every tick handles one bucket, so each player is still visited every interval-ticks
+        autoCraftTask.runTaskTimer(plugin, 1L, 1L);
     }
 
     public void stop() {
@@ -47,21 +124,73 @@ public class AutoCraftManager {
             autoCraftTask.cancel();
             autoCraftTask = null;
         }
+        stopPlanner();
+    }
+
+    private void startPlanner() {
+        stopPlanner();
+
+        AtomicInteger threadCount = new AtomicInteger();
+        planner = Executors.newFixedThreadPool(plannerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "GhastMisc-CraftPlanner-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private void stopPlanner() {
+        if (planner != null) {
+            planner.shutdownNow();
+            planner = null;
+        }
+        plannerGeneration++;
+        planning.clear();
+        completedPlans.clear();
     }
 
     public boolean toggleAutocraft(Player player) {
         UUID playerId = player.getUniqueId();
         boolean enabled = !autoCraftEnabled.getOrDefault(playerId, false);
+        // A toggle made while the player is loading wins over the stored value
+        loadingToggles.remove(playerId);
 
         if (enabled) {
             autoCraftEnabled.put(playerId, true);
+            markDirty(playerId);
+            schedule(playerId);
         } else {
             autoCraftEnabled.remove(playerId);
         }
 
+        plugin.getStorageManager().markDirty(playerId);
         return enabled;
     }
 
+    // Called by StorageManager on the main thread when it starts reading the player's data
+    public void beginLoad(UUID playerId) {
+        loadingToggles.add(playerId);
+    }
+
+    // Called by StorageManager on the main thread once the player's data is read
+    public void applyLoaded(UUID playerId, boolean enabled) {
+        if (!loadingToggles.remove(playerId)) {
+            return;
+        }
+
+        if (enabled) {
+            autoCraftEnabled.put(playerId, true);
+        } else {
+            autoCraftEnabled.remove(playerId);
+        }
+    }
+
+    // Drops the player from memory; StorageManager has already saved them
+    public void handleQuit(UUID playerId) {
+        unschedule(playerId);
+        autoCraftEnabled.remove(playerId);
+        loadingToggles.remove(playerId);
+    }
+
     public boolean performOneCraft(Player player) {
         try {
             ItemStack heldItem = player.getInventory().getItemInMainHand();
@@ -69,189 +198,278 @@ public class AutoCraftManager {
                 return false;
             }
 
+            String heldKey = ItemUtils.getIngredientKey(heldItem);
+            if (heldKey == null) {
+                return false;
+            }
+
             // Find recipe that produces this item
-            CraftingManager craftingManager = plugin.getCraftingManager();
-            Map<String, CraftingManager.CraftingRecipe> recipes = craftingManager.getCustomRecipes();
-
-            for (CraftingManager.CraftingRecipe recipe : recipes.values()) {
-                // Check if this recipe produces the held item
-                if (ItemUtils.isSimilar(recipe.getResult(), heldItem)) {
-                    // Check permission
-                    if (recipe.getPermission() != null && !player.hasPermission(recipe.getPermission())) {
-                        continue;
-                    }
-
-                    // Check if player has ingredients
-                    int maxCraftable = getMaxCraftableAmount(player, recipe);
-                    if (maxCraftable > 0) {
-                        // Check inventory space
-                        int spaceForResults = getAvailableInventorySpace(player, recipe.getResult());
-                        int craftAmount = Math.min(maxCraftable, spaceForResults);
-
-                        if (craftAmount > 0) {
-                            // Remove ingredients
-                            removeIngredientsForCraft(player, recipe, craftAmount);
-
-                            // Give result
-                            ItemStack result = recipe.getResult().clone();
-                            result.setAmount(craftAmount);
-                            player.getInventory().addItem(result);
-
-                            return true;
-                        }
-                    }
-                }
+            List<CraftingManager.CraftingRecipe> recipes =
+                    plugin.getCraftingManager().getRegistry().getRecipesProducing(heldKey);
+            if (recipes.isEmpty()) {
+                return false;
             }
 
-            return false;
+            CraftEngine craftEngine = plugin.getCraftEngine();
+            InventoryHistogram histogram = InventoryHistogram.of(player.getInventory().getStorageContents(),
+                    plugin.getCraftingManager().getRegistry()::getResultItem);
+            CraftEngine.CraftPlan plan = craftEngine.planFirst(player::hasPermission, histogram, recipes);
+
+            return craftEngine.apply(player, plan) && !plan.isEmpty();
         } catch (Exception e) {
             plugin.getLogger().severe("Error in one-craft for player " + player.getName() + ": " + e.getMessage());
             return false;
         }
     }
 
-    private void processAutoCraft() {
+    public void markDirty(UUID playerId) {
+        dirtyPlayers.add(playerId);
+        inventoryVersions.merge(playerId, 1L, Long::sum);
+    }
+
+    public void markAllDirty() {
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            markDirty(player.getUniqueId());
+        }
+    }
+
+    public void clearDirty(UUID playerId) {
+        dirtyPlayers.remove(playerId);
+    }
+
+    // Adds the player to their tick bucket if they have autocraft or compactor work
+    public void scheduleIfActive(Player player) {
+        UUID playerId = player.getUniqueId();
+        CompactorManager compactorManager = plugin.getCompactorManager();
+
+        if (isAutoCraftEnabled(playerId) || (compactorManager != null && compactorManager.isCompactorActive(playerId))) {
+            schedule(playerId);
+        }
+    }
+
+    public void schedule(UUID playerId) {
+        buckets.get(bucketOf(playerId)).add(playerId);
+    }
+
+    public void unschedule(UUID playerId) {
+        buckets.get(bucketOf(playerId)).remove(playerId);
+        dirtyPlayers.remove(playerId);
+        inventoryVersions.remove(playerId);
+    }
+
+    private int bucketOf(UUID playerId) {
+        return Math.floorMod(playerId.hashCode(), intervalTicks);
+    }
+
+    private void rebuildSchedule() {
+        List<Set<UUID>> newBuckets = new ArrayList<>(intervalTicks);
+        for (int i = 0; i < intervalTicks; i++) {
+            newBuckets.add(new LinkedHashSet<>());
+        }
+
+        buckets = newBuckets;
+        workQueue.clear();
+        queued.clear();
+
+        // Only players with autocraft on or a non-empty compactor need a bucket
         for (UUID playerId : autoCraftEnabled.keySet()) {
-            Player player = Bukkit.getPlayer(playerId);
-            if (player != null && player.isOnline()) {
-                autoCraftForPlayer(player);
+            if (Bukkit.getPlayer(playerId) != null) {
+                schedule(playerId);
             }
         }
-    }
 
-    private void processCompactorAutoCraft() {
-        // Auto-craft only selected items in each player's compactor
-        for (Player player : Bukkit.getOnlinePlayers()) {
-            if (player != null && player.isOnline()) {
-                plugin.getCompactorManager().processCompactorAutoCrafting(player);
+        CompactorManager compactorManager = plugin.getCompactorManager();
+        if (compactorManager != null) {
+            for (UUID playerId : compactorManager.getActiveCompactorPlayers()) {
+                schedule(playerId);
             }
         }
     }
 
-    private void autoCraftForPlayer(Player player) {
-        try {
-            CraftingManager craftingManager = plugin.getCraftingManager();
-            Map<String, CraftingManager.CraftingRecipe> recipes = craftingManager.getCustomRecipes();
+    private void processTick() {
+        long start = System.nanoTime();
 
-            for (CraftingManager.CraftingRecipe recipe : recipes.values()) {
-                // Check permission
-                if (recipe.getPermission() != null && !player.hasPermission(recipe.getPermission())) {
-                    continue;
-                }
+        // Queue this tick's bucket behind any work carried over from previous ticks
+        for (UUID playerId : buckets.get((int) (currentTick++ % intervalTicks))) {
+            if (queued.add(playerId)) {
+                workQueue.add(playerId);
+            }
+        }
 
-                // Check if player has all required ingredients
-                int maxCraftable = getMaxCraftableAmount(player, recipe);
-                if (maxCraftable > 0) {
-                    // Check inventory space
-                    int spaceForResults = getAvailableInventorySpace(player, recipe.getResult());
-                    int craftAmount = Math.min(maxCraftable, spaceForResults);
-
-                    if (craftAmount > 0) {
-                        // Remove ingredients
-                        removeIngredientsForCraft(player, recipe, craftAmount);
-
-                        // Give result
-                        ItemStack result = recipe.getResult().clone();
-                        result.setAmount(craftAmount);
-                        player.getInventory().addItem(result);
-                    }
-                }
+        // Completed plans go first and share the budget with player visits. Always make progress
+        // on at least one of them, then stop once the budget is spent; the rest waits for the next tick.
+        boolean worked = false;
+        while (!completedPlans.isEmpty() || !workQueue.isEmpty()) {
+            if (worked && System.nanoTime() - start >= tickBudgetNanos) {
+                ticksOverBudget++;
+                break;
             }
-        } catch (Exception e) {
-            plugin.getLogger().severe("Error in auto-craft for player " + player.getName() + ": " + e.getMessage());
+
+            PlanResult result = completedPlans.poll();
+            if (result != null) {
+                applyCompletedPlan(result);
+            } else {
+                UUID playerId = workQueue.poll();
+                queued.remove(playerId);
+                processPlayer(playerId);
+            }
+            worked = true;
         }
     }
 
-    private int getMaxCraftableAmount(Player player, CraftingManager.CraftingRecipe recipe) {
-        int maxCraftable = Integer.MAX_VALUE;
-        CraftingManager craftingManager = plugin.getCraftingManager();
+    private void processPlayer(UUID playerId) {
+        Player player = Bukkit.getPlayer(playerId);
+        CompactorManager compactorManager = plugin.getCompactorManager();
+        boolean autoCraft = isAutoCraftEnabled(playerId);
+        boolean compactor = compactorManager.isCompactorActive(playerId);
 
-        for (Map.Entry<Integer, CraftingManager.RecipeIngredient> entry : recipe.getIngredients().entrySet()) {
-            CraftingManager.RecipeIngredient ingredient = entry.getValue();
-            int available = countAvailableIngredient(player, ingredient);
-            int needed = ingredient.getAmount();
+        if (player == null || !player.isOnline() || (!autoCraft && !compactor)) {
+            unschedule(playerId);
+            return;
+        }
 
-            if (available < needed) {
-                return 0;
-            }
+        // A plan for this player is still being computed
+        if (planning.contains(playerId)) {
+            return;
+        }
 
-            maxCraftable = Math.min(maxCraftable, available / needed);
+        if (eventDriven && !dirtyPlayers.contains(playerId)) {
+            passesSkipped++;
+            return;
         }
 
-        return maxCraftable;
-    }
+        passesRun++;
 
-    private int countAvailableIngredient(Player player, CraftingManager.RecipeIngredient ingredient) {
-        int count = 0;
-        CraftingManager craftingManager = plugin.getCraftingManager();
+        if (asyncPlanning && planner != null) {
+            submitPlan(player, autoCraft);
+            return;
+        }
 
-        if (ingredient.isCustom()) {
-            Map<String, ItemStack> customIngredients = craftingManager.getCustomIngredients();
-            ItemStack customItem = customIngredients.get(ingredient.getName());
-            if (customItem != null) {
-                count = ItemUtils.countSimilarItems(player.getInventory(), customItem);
-            }
-        } else {
+        // Autocraft already covers every recipe the compactor could select
+        boolean crafted = autoCraft
+                ? autoCraftForPlayer(player)
+                : compactorManager.processCompactorAutoCrafting(player);
+
+        // Players that crafted something stay dirty so the next visit re-checks them
+        if (!crafted) {
+            dirtyPlayers.remove(playerId);
+        }
+    }
+
+    private void submitPlan(Player player, boolean autoCraft) {
+        UUID playerId = player.getUniqueId();
+        CraftEngine craftEngine = plugin.getCraftEngine();
+        RecipeRegistry registry = plugin.getCraftingManager().getRegistry();
+        InventorySnapshot snapshot = InventorySnapshot.capture(player, inventoryVersions.getOrDefault(playerId, 0L),
+                registry.getRecipePermissions(), registry::getResultItem);
+
+        // Autocraft already covers every recipe the compactor could select
+        Set<String> selectedIds = autoCraft ? null : plugin.getCompactorManager().getSelectedRecipeIds(playerId);
+        int maxIterations = maxCascadeIterations;
+        int generation = plannerGeneration;
+
+        planning.add(playerId);
+        planner.execute(() -> {
+            CraftEngine.CraftPlan plan = null;
             try {
-                org.bukkit.Material material = org.bukkit.Material.valueOf(ingredient.getName().toUpperCase());
-                for (ItemStack item : player.getInventory().getContents()) {
-                    if (item != null && item.getType() == material && !ItemUtils.isCustomItem(item)) {
-                        count += item.getAmount();
-                    }
-                }
-            } catch (IllegalArgumentException e) {
-                // Invalid material
+                plan = craftEngine.planCascade(snapshot.getPermissions()::contains, InventoryHistogram.of(snapshot),
+                        recipe -> selectedIds == null || selectedIds.contains(recipe.getId()), maxIterations);
+            } catch (Exception e) {
+                plugin.getLogger().severe("Error planning auto-craft for player " + playerId + ": " + e.getMessage());
             }
+            completedPlans.add(new PlanResult(playerId, snapshot, plan, generation));
+        });
+    }
+
+    private void applyCompletedPlan(PlanResult result) {
+        // Submitted before a reload; the player was already released from planning then
+        if (result.generation != plannerGeneration) {
+            return;
         }
 
-        return count;
-    }
+        UUID playerId = result.playerId;
+        planning.remove(playerId);
 
-    private int getAvailableInventorySpace(Player player, ItemStack resultItem) {
-        int availableSpace = 0;
+        Player player = Bukkit.getPlayer(playerId);
+        if (player == null || !player.isOnline() || result.plan == null) {
+            return;
+        }
 
-        // Check existing stacks that can be expanded
-        for (ItemStack item : player.getInventory().getContents()) {
-            if (ItemUtils.isSimilar(item, resultItem)) {
-                availableSpace += item.getMaxStackSize() - item.getAmount();
-            }
+        // The inventory changed while planning; the next bucket visit plans again from a fresh snapshot
+        if (!result.snapshot.matches(player, inventoryVersions.getOrDefault(playerId, 0L))) {
+            plansStale++;
+            dirtyPlayers.add(playerId);
+            return;
         }
 
-        // Check empty slots
-        for (ItemStack item : player.getInventory().getContents()) {
-            if (item == null || item.getType().isAir()) {
-                availableSpace += resultItem.getMaxStackSize();
-            }
+        if (result.plan.isEmpty()) {
+            dirtyPlayers.remove(playerId);
+            return;
         }
 
-        return availableSpace;
-    }
+        // A change the snapshot could not see took ingredients or space away; plan again on the next visit
+        if (!plugin.getCraftEngine().apply(player, result.plan)) {
+            plansStale++;
+            markDirty(playerId);
+            return;
+        }
 
-    private void removeIngredientsForCraft(Player player, CraftingManager.CraftingRecipe recipe, int craftAmount) {
-        CraftingManager craftingManager = plugin.getCraftingManager();
+        // Players that crafted something stay dirty so the next visit re-checks them
+        plansApplied++;
+    }
 
-        for (Map.Entry<Integer, CraftingManager.RecipeIngredient> entry : recipe.getIngredients().entrySet()) {
-            CraftingManager.RecipeIngredient ingredient = entry.getValue();
-            int totalNeeded = ingredient.getAmount() * craftAmount;
+    private boolean autoCraftForPlayer(Player player) {
+        try {
+            CraftEngine craftEngine = plugin.getCraftEngine();
+            InventoryHistogram histogram = InventoryHistogram.of(player.getInventory().getStorageContents(),
+                    plugin.getCraftingManager().getRegistry()::getResultItem);
+            CraftEngine.CraftPlan plan = craftEngine.planCascade(player::hasPermission, histogram, recipe -> true, maxCascadeIterations);
 
-            if (ingredient.isCustom()) {
-                Map<String, ItemStack> customIngredients = craftingManager.getCustomIngredients();
-                ItemStack customItem = customIngredients.get(ingredient.getName());
-                if (customItem != null) {
-                    ItemUtils.removeItems(player.getInventory(), customItem, totalNeeded);
-                }
-            } else {
-                try {
-                    org.bukkit.Material material = org.bukkit.Material.valueOf(ingredient.getName().toUpperCase());
-                    ItemUtils.removeItems(player.getInventory(), material, totalNeeded);
-                } catch (IllegalArgumentException e) {
-                    // Invalid material
-                }
-            }
+            // A rejected plan keeps the player dirty as well, so the next visit plans again
+            return !craftEngine.apply(player, plan) || !plan.isEmpty();
+        } catch (Exception e) {
+            plugin.getLogger().severe("Error in auto-craft for player " + player.getName() + ": " + e.getMessage());
+            return false;
         }
     }
 
+    public int getMaxCascadeIterations() {
+        return maxCascadeIterations;
+    }
+
     public boolean isAutoCraftEnabled(UUID playerId) {
         return autoCraftEnabled.getOrDefault(playerId, false);
     }
-}
\ No newline at end of file
+
+    public void sendStats(CommandSender sender) {
+        long total = passesRun + passesSkipped;
+        double skippedPercent = total == 0 ? 0.0 : (passesSkipped * 100.0) / total;
+
+        sender.sendMessage("§6Auto-Craft Stats:");
+        sender.sendMessage("§7- §fMode: §e" + (eventDriven ? "event-driven" : "full sweep"));
+        sender.sendMessage("§7- §fPlayer passes run: §e" + passesRun);
+        sender.sendMessage("§7- §fPlayer passes skipped: §e" + passesSkipped
+                + " §8(§f" + String.format("%.1f", skippedPercent) + "%§8)");
+        sender.sendMessage("§7- §fDirty players: §e" + dirtyPlayers.size());
+        sender.sendMessage("§7- §fCarried-over players: §e" + workQueue.size()
+                + " §8(§f" + ticksOverBudget + " ticks over budget§8)");
+        sender.sendMessage("§7- §fPlanning: §e" + (asyncPlanning ? "async (" + plannerThreads + " threads)" : "main thread"));
+        sender.sendMessage("§7- §fPlans applied: §e" + plansApplied + " §8(§f" + plansStale + " stale, re-planned§8)");
+        sender.sendMessage("§7- §fInventory commits: §e" + plugin.getCraftEngine().getBulkWrites()
+                + " §8(§f" + plugin.getCraftEngine().getSlotWritesSaved() + " slot writes saved§8)");
+    }
+
+    private static class PlanResult {
+        private final UUID playerId;
+        private final InventorySnapshot snapshot;
+        private final CraftEngine.CraftPlan plan;
+        private final int generation;
+
+        private PlanResult(UUID playerId, InventorySnapshot snapshot, CraftEngine.CraftPlan plan, int generation) {
+            this.playerId = playerId;
+            this.snapshot = snapshot;
+            this.plan = plan;
+            this.generation = generation;
+        }
+    }
+}
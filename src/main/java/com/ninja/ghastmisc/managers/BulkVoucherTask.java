@@ -0,0 +1,121 @@
+package com.ninja.ghastmisc.managers;
+
+import com.ninja.ghastmisc.GhastMiscPlugin;
+import com.ninja.ghastmisc.utils.ItemUtils;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// Gives the same voucher to many players, spread over ticks: each tick handles players until
+// settings.bulk-tick-budget-nanos is used up (at least one), with one inventory write per player.
+// Players without room get what fits and are listed in a single summary to the sender.
+class BulkVoucherTask extends BukkitRunnable {
+
+    // Names listed in the summary before it switches to "and N more"
+    private static final int MAX_LISTED_NAMES = 10;
+
+    private final GhastMiscPlugin plugin;
+    private final CommandSender sender;
+    private final List<UUID> playerIds = new ArrayList<>();
+    private final VoucherManager.VoucherData data;
+    private final ItemStack template;
+    private final int amount;
+    private final long tickBudgetNanos;
+
+    private int index;
+    private int given;
+    private int playersGiven;
+    private int missed;
+    private int offline;
+    private final List<String> fullPlayers = new ArrayList<>();
+
+    BulkVoucherTask(GhastMiscPlugin plugin, CommandSender sender, List<Player> players,
+                    VoucherManager.VoucherData data, ItemStack template, int amount, long tickBudgetNanos) {
+        this.plugin = plugin;
+        this.sender = sender;
+        this.data = data;
+        this.template = template;
+        this.amount = amount;
+        this.tickBudgetNanos = tickBudgetNanos;
+
+        // Looked up again when their turn comes, so players who leave in between are skipped
+        for (Player player : players) {
+            playerIds.add(player.getUniqueId());
+        }
+    }
+
+    @Override
+    public void run() {
+        long start = System.nanoTime();
+
+        while (index < playerIds.size()) {
+            Player player = Bukkit.getPlayer(playerIds.get(index++));
+            if (player == null) {
+                offline++;
+            } else {
+                give(player);
+            }
+
+            if (System.nanoTime() - start >= tickBudgetNanos) {
+                return;
+            }
+        }
+
+        cancel();
+        sendSummary();
+    }
+
+    private void give(Player player) {
+        PlayerInventory inventory = player.getInventory();
+        ItemStack[] contents = inventory.getStorageContents();
+        int placed;
+
+        if (data.isStackable()) {
+            placed = ItemUtils.addToContents(contents, template, amount);
+        } else {
+            // Every voucher gets its own id, so each one takes an empty slot
+            placed = 0;
+            for (int i = 0; i < contents.length && placed < amount; i++) {
+                if (contents[i] == null || contents[i].getType() == Material.AIR) {
+                    contents[i] = plugin.getVoucherManager().issueVoucher(template, data);
+                    placed++;
+                }
+            }
+        }
+
+        if (placed > 0) {
+            inventory.setStorageContents(contents);
+            given += placed;
+            playersGiven++;
+        }
+        if (placed < amount) {
+            missed += amount - placed;
+            fullPlayers.add(player.getName());
+        }
+    }
+
+    private void sendSummary() {
+        plugin.getMessageManager().sendMessage(sender, "voucher.bulk-finished",
+                "type", data.getType(), "given", String.valueOf(given), "players", String.valueOf(playersGiven));
+
+        if (!fullPlayers.isEmpty()) {
+            String names = String.join(", ", fullPlayers.subList(0, Math.min(MAX_LISTED_NAMES, fullPlayers.size())));
+            if (fullPlayers.size() > MAX_LISTED_NAMES) {
+                names += " and " + (fullPlayers.size() - MAX_LISTED_NAMES) + " more";
+            }
+            plugin.getMessageManager().sendMessage(sender, "voucher.bulk-full",
+                    "count", String.valueOf(fullPlayers.size()), "missed", String.valueOf(missed), "names", names);
+        }
+        if (offline > 0) {
+            plugin.getMessageManager().sendMessage(sender, "voucher.bulk-offline", "count", String.valueOf(offline));
+        }
+    }
+}
@@ -2,96 +2,78 @@ package com.ninja.ghastmisc.managers;
 
 import com.ninja.ghastmisc.GhastMiscPlugin;
 import com.ninja.ghastmisc.utils.ItemUtils;
-import com.ninja.ghastmisc.utils.ColorUtils;
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 
-import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
-import java.io.IOException;
 import java.util.*;
 
 public class CompactorManager {
 
     private final GhastMiscPlugin plugin;
+    // Selections of online players only; loaded on join, evicted on quit
     private final Map<UUID, Map<Integer, String>> playerCompactorItems = new HashMap<>();
-    private final Gson gson = new Gson();
-    private final File compactorFile;
+    // Online players with at least one compactor selection, kept current on join, quit and GUI edits
+    private final Set<UUID> activeCompactorPlayers = new HashSet<>();
+    // Players whose load is still in flight -> compactor slots they added or removed meanwhile
+    private final Map<UUID, Set<Integer>> pendingLoads = new HashMap<>();
 
     public CompactorManager(GhastMiscPlugin plugin) {
         this.plugin = plugin;
-        this.compactorFile = new File(plugin.getDataFolder(), "compactor.json");
-        loadCompactorData();
     }
 
-    public void loadCompactorData() {
-        if (!compactorFile.exists()) {
-            return;
-        }
+    // Called by StorageManager on the main thread when it starts reading the player's data
+    public void beginLoad(UUID playerId) {
+        pendingLoads.put(playerId, new HashSet<>());
+    }
 
-        try (FileReader reader = new FileReader(compactorFile)) {
-            Map<String, Map<Integer, String>> data = gson.fromJson(reader,
-                    new TypeToken<Map<String, Map<Integer, String>>>(){}.getType());
-
-            if (data != null) {
-                playerCompactorItems.clear();
-                for (Map.Entry<String, Map<Integer, String>> entry : data.entrySet()) {
-                    try {
-                        UUID playerId = UUID.fromString(entry.getKey());
-                        playerCompactorItems.put(playerId, entry.getValue());
-                    } catch (IllegalArgumentException e) {
-                        plugin.getLogger().warning("Invalid UUID in compactor.json: " + entry.getKey());
-                    }
-                }
+    // Called by StorageManager on the main thread once the player's data is read
+    public void applyLoaded(UUID playerId, Map<Integer, String> items) {
+        // Slots the player added or removed while the load was in flight win
+        Set<Integer> editedSlots = pendingLoads.remove(playerId);
+        Map<Integer, String> playerItems = playerCompactorItems.computeIfAbsent(playerId, k -> new HashMap<>());
+        for (Map.Entry<Integer, String> entry : items.entrySet()) {
+            if (editedSlots == null || !editedSlots.contains(entry.getKey())) {
+                playerItems.put(entry.getKey(), entry.getValue());
             }
-        } catch (IOException e) {
-            plugin.getLogger().severe("Error loading compactor data: " + e.getMessage());
         }
+
+        updateActive(playerId);
     }
 
-    public void saveCompactorData() {
-        try (FileWriter writer = new FileWriter(compactorFile)) {
-            Map<String, Map<Integer, String>> data = new HashMap<>();
-            for (Map.Entry<UUID, Map<Integer, String>> entry : playerCompactorItems.entrySet()) {
-                data.put(entry.getKey().toString(), entry.getValue());
-            }
-            gson.toJson(data, writer);
-        } catch (IOException e) {
-            plugin.getLogger().severe("Error saving compactor data: " + e.getMessage());
+    private void recordEdit(UUID playerId, int compactorSlot) {
+        Set<Integer> editedSlots = pendingLoads.get(playerId);
+        if (editedSlots != null) {
+            editedSlots.add(compactorSlot);
         }
     }
 
-    public void openCompactorGUI(Player player) {
-        Inventory gui = Bukkit.createInventory(player, 45, "§6Compactor");
-
-        // Fill with glass panes
-        ItemStack glassPane = ItemUtils.createGuiItem(Material.BLACK_STAINED_GLASS_PANE, " ", "");
-        for (int i = 0; i < 45; i++) {
-            gui.setItem(i, glassPane);
-        }
+    // Copy of the player's selections (slot -> item id) for saving
+    public Map<Integer, String> getSelections(UUID playerId) {
+        Map<Integer, String> playerItems = playerCompactorItems.get(playerId);
+        return playerItems == null ? new HashMap<>() : new HashMap<>(playerItems);
+    }
 
-        // Load player's compactor items
-        Map<Integer, String> playerItems = playerCompactorItems.getOrDefault(player.getUniqueId(), new HashMap<>());
+    private void markDataDirty(UUID playerId) {
+        plugin.getStorageManager().markDirty(playerId);
+    }
 
-        // Set compactor slots (centered in GUI)
-        int[] compactorSlots = {19, 20, 21, 22, 23, 24, 25}; // 7 slots centered
+    public void openCompactorGUI(Player player) {
+        Inventory gui = plugin.getGuiManager().createMenu(GhastMenuHolder.MenuType.COMPACTOR);
 
-        for (int i = 0; i < compactorSlots.length; i++) {
-            int slot = compactorSlots[i];
-            gui.setItem(slot, null); // Clear for player interaction
+        // Load player's compactor items
+        Map<Integer, String> playerItems = playerCompactorItems.getOrDefault(player.getUniqueId(), Collections.emptyMap());
+        GuiLayout layout = plugin.getGuiManager().getLayout();
 
+        for (int i = 0; i < layout.getCompactorSlotCount(); i++) {
             // If player has item saved for this slot, display it
-            if (playerItems.containsKey(i)) {
-                String itemId = playerItems.get(i);
+            String itemId = playerItems.get(i);
+            if (itemId != null) {
                 ItemStack displayItem = getItemFromId(itemId);
                 if (displayItem != null) {
-                    gui.setItem(slot, displayItem);
+                    gui.setItem(layout.getCompactorSlot(i), displayItem);
                 }
             }
         }
@@ -102,16 +84,7 @@ public class CompactorManager {
 
     public void handleCompactorClick(Player player, int slot, ItemStack clickedItem) {
         // Check if it's a compactor slot
-        int[] compactorSlots = {19, 20, 21, 22, 23, 24, 25};
-        int compactorSlot = -1;
-
-        for (int i = 0; i < compactorSlots.length; i++) {
-            if (compactorSlots[i] == slot) {
-                compactorSlot = i;
-                break;
-            }
-        }
-
+        int compactorSlot = plugin.getGuiManager().getLayout().getCompactorIndex(slot);
         if (compactorSlot == -1) {
             return; // Not a compactor slot
         }
@@ -121,15 +94,16 @@ public class CompactorManager {
 
         if (clickedItem != null && clickedItem.getType() != Material.AIR) {
             // Player clicked on an item in compactor - remove it
-            playerItems.remove(compactorSlot);
             player.getOpenInventory().getTopInventory().setItem(slot, null);
             plugin.getMessageManager().sendMessage(player, "crafting.compactor-item-removed");
-        } else {
-            // Player clicked on empty slot - check if they have an item to add
-            // This will be handled by the inventory click event
-        }
 
-        saveCompactorData();
+            recordEdit(playerId, compactorSlot);
+            if (playerItems.remove(compactorSlot) != null) {
+                updateActive(playerId);
+                markDataDirty(playerId);
+            }
+        }
+        // Clicks on empty slots are handled by the inventory click event
     }
 
     public void handleInventoryClick(Player player, ItemStack clickedItem) {
@@ -154,8 +128,9 @@ public class CompactorManager {
         UUID playerId = player.getUniqueId();
         Map<Integer, String> playerItems = playerCompactorItems.computeIfAbsent(playerId, k -> new HashMap<>());
 
+        GuiLayout layout = plugin.getGuiManager().getLayout();
         int emptySlot = -1;
-        for (int i = 0; i < 7; i++) {
+        for (int i = 0; i < layout.getCompactorSlotCount(); i++) {
             if (!playerItems.containsKey(i)) {
                 emptySlot = i;
                 break;
@@ -169,55 +144,43 @@ public class CompactorManager {
 
         // Add item to compactor
         playerItems.put(emptySlot, itemId);
+        recordEdit(playerId, emptySlot);
 
         // Update GUI
-        int[] compactorSlots = {19, 20, 21, 22, 23, 24, 25};
-        player.getOpenInventory().getTopInventory().setItem(compactorSlots[emptySlot], clickedItem.clone());
+        player.getOpenInventory().getTopInventory().setItem(layout.getCompactorSlot(emptySlot), clickedItem.clone());
 
         plugin.getMessageManager().sendMessage(player, "crafting.compactor-item-added");
-        saveCompactorData();
+        updateActive(playerId);
+        plugin.getAutoCraftManager().markDirty(playerId);
+        plugin.getAutoCraftManager().schedule(playerId);
+        markDataDirty(playerId);
     }
 
     public void processCompactorCrafting(Player player) {
         UUID playerId = player.getUniqueId();
-        Map<Integer, String> playerItems = playerCompactorItems.getOrDefault(playerId, new HashMap<>());
+        Map<Integer, String> playerItems = playerCompactorItems.getOrDefault(playerId, Collections.emptyMap());
 
         if (playerItems.isEmpty()) {
             return;
         }
 
-        CraftingManager craftingManager = plugin.getCraftingManager();
-        Map<String, CraftingManager.CraftingRecipe> recipes = craftingManager.getCustomRecipes();
+        RecipeRegistry registry = plugin.getCraftingManager().getRegistry();
+        CraftEngine craftEngine = plugin.getCraftEngine();
+        InventoryHistogram histogram = InventoryHistogram.of(player.getInventory().getStorageContents(),
+                registry::getResultItem);
+        CraftEngine.CraftPlan plan = new CraftEngine.CraftPlan();
 
+        // One pass in compactor slot order
         for (String itemId : playerItems.values()) {
-            // Find recipe for this item
-            CraftingManager.CraftingRecipe recipe = recipes.get(itemId);
-            if (recipe == null) {
-                continue;
-            }
-
-            // Check permission
-            if (recipe.getPermission() != null && !player.hasPermission(recipe.getPermission())) {
-                continue;
+            CraftingManager.CraftingRecipe recipe = registry.getRecipe(itemId);
+            if (recipe != null) {
+                craftEngine.planCraft(registry, player::hasPermission, histogram, recipe, plan);
             }
+        }
 
-            // Check if player has ingredients
-            int maxCraftable = getMaxCraftableAmount(player, recipe);
-            if (maxCraftable > 0) {
-                // Check inventory space
-                int spaceForResults = getAvailableInventorySpace(player, recipe.getResult());
-                int craftAmount = Math.min(maxCraftable, spaceForResults);
-
-                if (craftAmount > 0) {
-                    // Remove ingredients
-                    removeIngredientsForCraft(player, recipe, craftAmount);
-
-                    // Give result
-                    ItemStack result = recipe.getResult().clone();
-                    result.setAmount(craftAmount);
-                    player.getInventory().addItem(result);
-                }
-            }
+        // A rejected plan changed nothing; autocraft plans again on its next visit
+        if (!craftEngine.apply(player, plan)) {
+            plugin.getAutoCraftManager().markDirty(playerId);
         }
     }
 
@@ -258,12 +221,8 @@ public class CompactorManager {
         }
 
         // Check vanilla material
-        try {
-            Material material = Material.valueOf(itemId.toUpperCase());
-            return new ItemStack(material);
-        } catch (IllegalArgumentException e) {
-            return null;
-        }
+        Material material = Material.matchMaterial(itemId);
+        return material != null && material.isItem() ? new ItemStack(material) : null;
     }
 
     private boolean hasValidRecipe(String itemId) {
@@ -273,135 +232,58 @@ public class CompactorManager {
         return recipes.containsKey(itemId);
     }
 
-    private int getMaxCraftableAmount(Player player, CraftingManager.CraftingRecipe recipe) {
-        int maxCraftable = Integer.MAX_VALUE;
-        CraftingManager craftingManager = plugin.getCraftingManager();
-
-        for (Map.Entry<Integer, CraftingManager.RecipeIngredient> entry : recipe.getIngredients().entrySet()) {
-            CraftingManager.RecipeIngredient ingredient = entry.getValue();
-            int available = countAvailableIngredient(player, ingredient);
-            int needed = ingredient.getAmount();
-
-            if (available < needed) {
-                return 0;
-            }
-
-            maxCraftable = Math.min(maxCraftable, available / needed);
-        }
-
-        return maxCraftable;
+    // Copy of the recipe ids selected in the player's compactor
+    public Set<String> getSelectedRecipeIds(UUID playerId) {
+        Map<Integer, String> playerItems = playerCompactorItems.get(playerId);
+        return playerItems == null ? new HashSet<>() : new HashSet<>(playerItems.values());
     }
 
-    private int countAvailableIngredient(Player player, CraftingManager.RecipeIngredient ingredient) {
-        int count = 0;
-        CraftingManager craftingManager = plugin.getCraftingManager();
+    // Drops the player from memory; StorageManager has already saved them
+    public void handleQuit(UUID playerId) {
+        activeCompactorPlayers.remove(playerId);
+        playerCompactorItems.remove(playerId);
+        pendingLoads.remove(playerId);
+    }
 
-        if (ingredient.isCustom()) {
-            Map<String, ItemStack> customIngredients = craftingManager.getCustomIngredients();
-            ItemStack customItem = customIngredients.get(ingredient.getName());
-            if (customItem != null) {
-                count = ItemUtils.countSimilarItems(player.getInventory(), customItem);
-            }
+    private void updateActive(UUID playerId) {
+        if (hasCompactorItems(playerId) && Bukkit.getPlayer(playerId) != null) {
+            activeCompactorPlayers.add(playerId);
         } else {
-            try {
-                Material material = Material.valueOf(ingredient.getName().toUpperCase());
-                for (ItemStack item : player.getInventory().getContents()) {
-                    if (item != null && item.getType() == material && !ItemUtils.isCustomItem(item)) {
-                        count += item.getAmount();
-                    }
-                }
-            } catch (IllegalArgumentException e) {
-                // Invalid material
-            }
+            activeCompactorPlayers.remove(playerId);
         }
-
-        return count;
     }
 
-    private int getAvailableInventorySpace(Player player, ItemStack resultItem) {
-        int availableSpace = 0;
-
-        // Check existing stacks that can be expanded
-        for (ItemStack item : player.getInventory().getContents()) {
-            if (ItemUtils.isSimilar(item, resultItem)) {
-                availableSpace += item.getMaxStackSize() - item.getAmount();
-            }
-        }
+    public boolean isCompactorActive(UUID playerId) {
+        return activeCompactorPlayers.contains(playerId);
+    }
 
-        // Check empty slots
-        for (ItemStack item : player.getInventory().getContents()) {
-            if (item == null || item.getType().isAir()) {
-                availableSpace += resultItem.getMaxStackSize();
-            }
-        }
+    public Set<UUID> getActiveCompactorPlayers() {
+        return Collections.unmodifiableSet(activeCompactorPlayers);
+    }
 
-        return availableSpace;
+    public boolean hasCompactorItems(UUID playerId) {
+        Map<Integer, String> playerItems = playerCompactorItems.get(playerId);
+        return playerItems != null && !playerItems.isEmpty();
     }
-    public void processCompactorAutoCrafting(Player player) {
+
+    public boolean processCompactorAutoCrafting(Player player) {
         UUID playerId = player.getUniqueId();
-        Map<Integer, String> playerItems = playerCompactorItems.getOrDefault(playerId, new HashMap<>());
+        Map<Integer, String> playerItems = playerCompactorItems.getOrDefault(playerId, Collections.emptyMap());
 
         if (playerItems.isEmpty()) {
-            return;
+            return false;
         }
 
-        CraftingManager craftingManager = plugin.getCraftingManager();
-        Map<String, CraftingManager.CraftingRecipe> recipes = craftingManager.getCustomRecipes();
-
         // Only process items that are selected in the compactor
-        for (String itemId : playerItems.values()) {
-            // Find recipe for this specific selected item
-            CraftingManager.CraftingRecipe recipe = recipes.get(itemId);
-            if (recipe == null) {
-                continue;
-            }
-
-            // Check permission
-            if (recipe.getPermission() != null && !player.hasPermission(recipe.getPermission())) {
-                continue;
-            }
-
-            // Check if player has ingredients for this specific recipe
-            int maxCraftable = getMaxCraftableAmount(player, recipe);
-            if (maxCraftable > 0) {
-                // Check inventory space
-                int spaceForResults = getAvailableInventorySpace(player, recipe.getResult());
-                int craftAmount = Math.min(maxCraftable, spaceForResults);
-
-                if (craftAmount > 0) {
-                    // Remove ingredients
-                    removeIngredientsForCraft(player, recipe, craftAmount);
-
-                    // Give result
-                    ItemStack result = recipe.getResult().clone();
-                    result.setAmount(craftAmount);
-                    player.getInventory().addItem(result);
-                }
-            }
-        }
-    }
-
-    private void removeIngredientsForCraft(Player player, CraftingManager.CraftingRecipe recipe, int craftAmount) {
-        CraftingManager craftingManager = plugin.getCraftingManager();
-
-        for (Map.Entry<Integer, CraftingManager.RecipeIngredient> entry : recipe.getIngredients().entrySet()) {
-            CraftingManager.RecipeIngredient ingredient = entry.getValue();
-            int totalNeeded = ingredient.getAmount() * craftAmount;
-
-            if (ingredient.isCustom()) {
-                Map<String, ItemStack> customIngredients = craftingManager.getCustomIngredients();
-                ItemStack customItem = customIngredients.get(ingredient.getName());
-                if (customItem != null) {
-                    ItemUtils.removeItems(player.getInventory(), customItem, totalNeeded);
-                }
-            } else {
-                try {
-                    Material material = Material.valueOf(ingredient.getName().toUpperCase());
-                    ItemUtils.removeItems(player.getInventory(), material, totalNeeded);
-                } catch (IllegalArgumentException e) {
-                    // Invalid material
-                }
-            }
-        }
+        Set<String> selectedIds = new HashSet<>(playerItems.values());
+        CraftEngine craftEngine = plugin.getCraftEngine();
+        InventoryHistogram histogram = InventoryHistogram.of(player.getInventory().getStorageContents(),
+                plugin.getCraftingManager().getRegistry()::getResultItem);
+        CraftEngine.CraftPlan plan = craftEngine.planCascade(player::hasPermission, histogram,
+                recipe -> selectedIds.contains(recipe.getId()),
+                plugin.getAutoCraftManager().getMaxCascadeIterations());
+
+        // A rejected plan keeps the player dirty as well, so the next visit plans again
+        return !craftEngine.apply(player, plan) || !plan.isEmpty();
     }
-}
\ No newline at end of file
+}
@@ -98,9 +98,26 @@ public class ConfigManager {
         config.set("ingredients.example_ingredient.material", "DIAMOND");
         config.set("ingredients.example_ingredient.lore", java.util.Arrays.asList("&7This is an example ingredient"));
         config.set("ingredients.example_ingredient.custom-model-data", 1000);
+
+        // Auto-craft settings
+        config.set("autocraft.event-driven", true);
+        config.set("autocraft.max-cascade-iterations", 8);
+        config.set("autocraft.interval-ticks", 60);
+        config.set("autocraft.tick-budget-nanos", 2000000);
+        config.set("autocraft.async-planning", true);
+        config.set("autocraft.planner-threads", 2);
+
+        // Storage settings
+        config.set("storage.type", "json");
+        config.set("storage.save-delay-ticks", 40);
+        config.set("storage.shutdown-timeout-ms", 5000);
     }
 
     private void createDefaultVouchersConfig(FileConfiguration config) {
+        // Voucher settings
+        config.set("settings.placeholder-cache-ms", 1000);
+        config.set("settings.bulk-tick-budget-nanos", 2000000);
+
         // Create default voucher sections
         config.set("levels.voucher-name", "&5Levels&6Voucher");
         config.set("levels.voucher-lore", java.util.Arrays.asList(
@@ -252,6 +269,9 @@ public class ConfigManager {
         new BukkitRunnable() {
             @Override
             public void run() {
+                if (plugin.getGuiManager() != null) {
+                    plugin.getGuiManager().loadTemplates();
+                }
                 if (plugin.getCraftingManager() != null) {
                     plugin.getCraftingManager().loadCraftingData();
                 }
@@ -261,8 +281,11 @@ public class ConfigManager {
                 if (plugin.getCommandManager() != null) {
                     plugin.getCommandManager().loadCommandData();
                 }
-                if (plugin.getCompactorManager() != null) {
-                    plugin.getCompactorManager().loadCompactorData();
+                if (plugin.getStorageManager() != null) {
+                    plugin.getStorageManager().loadSettings();
+                }
+                if (plugin.getAutoCraftManager() != null) {
+                    plugin.getAutoCraftManager().loadSettings();
                 }
             }
         }.runTaskLater(plugin, 20L); // Wait 1 second for async loading
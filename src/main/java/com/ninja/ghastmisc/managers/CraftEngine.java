@@ -0,0 +1,309 @@
+package com.ninja.ghastmisc.managers;
+
+import com.ninja.ghastmisc.GhastMiscPlugin;
+import com.ninja.ghastmisc.utils.ItemUtils;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Predicate;
+
+// Shared crafting logic for autocraft, one-craft and the compactor.
+// Crafts are first planned against an InventoryHistogram, then applied to the inventory in one go.
+// Planning only sees the histogram and a permission check, so it can also run off the main thread
+// on an InventorySnapshot; main-thread callers simply pass player::hasPermission.
+public class CraftEngine {
+
+    private final GhastMiscPlugin plugin;
+
+    // Inventory commits since enable, and the per-slot writes they replaced
+    private long bulkWrites = 0;
+    private long slotWritesSaved = 0;
+
+    public CraftEngine(GhastMiscPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    // Plans every craftable recipe accepted by the filter, resolving chains in craft order.
+    // Further iterations only matter for recipes caught in a dependency cycle.
+    public CraftPlan planCascade(Predicate<String> permissions, InventoryHistogram histogram,
+                                 Predicate<CraftingManager.CraftingRecipe> filter, int maxIterations) {
+        // One registry for the whole plan, even if recipes are reloaded meanwhile
+        RecipeRegistry registry = plugin.getCraftingManager().getRegistry();
+        CraftPlan plan = new CraftPlan();
+
+        for (int iteration = 0; iteration < maxIterations; iteration++) {
+            boolean craftedThisIteration = false;
+
+            // Only recipes anchored on a key the player holds are candidates, visited in craft order
+            PriorityQueue<CraftingManager.CraftingRecipe> candidates =
+                    new PriorityQueue<>(Comparator.comparingInt(registry::getCraftIndex));
+            Set<String> queuedRecipes = new HashSet<>();
+
+            for (String key : histogram.getKeys()) {
+                for (CraftingManager.CraftingRecipe recipe : registry.getRecipesByAnchor(key)) {
+                    if (filter.test(recipe) && queuedRecipes.add(recipe.getId())) {
+                        candidates.add(recipe);
+                    }
+                }
+            }
+
+            while (!candidates.isEmpty()) {
+                CraftingManager.CraftingRecipe recipe = candidates.poll();
+
+                if (planCraft(registry, permissions, histogram, recipe, plan) > 0) {
+                    craftedThisIteration = true;
+
+                    // Later recipes that consume this result may be craftable now
+                    int index = registry.getCraftIndex(recipe);
+                    for (CraftingManager.CraftingRecipe consumer : registry.getRecipesUsing(recipe.getResultKey())) {
+                        if (registry.getCraftIndex(consumer) > index && filter.test(consumer)
+                                && queuedRecipes.add(consumer.getId())) {
+                            candidates.add(consumer);
+                        }
+                    }
+                }
+            }
+
+            if (!craftedThisIteration) {
+                break;
+            }
+        }
+
+        return plan;
+    }
+
+    // Plans the first recipe from the list that can be crafted at all
+    public CraftPlan planFirst(Predicate<String> permissions, InventoryHistogram histogram,
+                               List<CraftingManager.CraftingRecipe> recipes) {
+        RecipeRegistry registry = plugin.getCraftingManager().getRegistry();
+        CraftPlan plan = new CraftPlan();
+
+        for (CraftingManager.CraftingRecipe recipe : recipes) {
+            if (planCraft(registry, permissions, histogram, recipe, plan) > 0) {
+                break;
+            }
+        }
+
+        return plan;
+    }
+
+    // Plans as many crafts of one recipe as the ingredients and free space allow.
+    // The histogram is updated to reflect the planned craft.
+    public int planCraft(RecipeRegistry registry, Predicate<String> permissions, InventoryHistogram histogram,
+                         CraftingManager.CraftingRecipe recipe, CraftPlan plan) {
+        // Cheap reject: the player does not even hold the rarest ingredient
+        if (!histogram.contains(registry.getAnchorKey(recipe))) {
+            return 0;
+        }
+
+        // Check permission
+        if (recipe.getPermission() != null && !permissions.test(recipe.getPermission())) {
+            return 0;
+        }
+
+        // Check if player has all required ingredients
+        int maxCraftable = getMaxCraftableAmount(histogram, recipe);
+        if (maxCraftable <= 0) {
+            return 0;
+        }
+
+        // Check inventory space
+        int spaceForResults = histogram.getAvailableSpace(recipe.getResultKey(), recipe.getResult().getMaxStackSize());
+        int craftAmount = Math.min(maxCraftable, spaceForResults);
+        if (craftAmount <= 0) {
+            return 0;
+        }
+
+        for (Map.Entry<String, Integer> requirement : recipe.getRequirements().entrySet()) {
+            histogram.remove(requirement.getKey(), requirement.getValue() * craftAmount);
+        }
+        histogram.add(recipe.getResultKey(), craftAmount, recipe.getResult().getMaxStackSize());
+
+        plan.add(recipe, craftAmount);
+        return craftAmount;
+    }
+
+    // Applies the net effect of the plan: intermediate results consumed later in the same plan
+    // never touch the inventory. The final contents are worked out in memory and committed with
+    // a single setStorageContents instead of one setItem/addItem per slot.
+    // Returns false, changing nothing, if the inventory no longer holds every ingredient the plan
+    // consumes or the results would not fit (it was planned against a different inventory);
+    // the caller should re-plan. Items are never created without their ingredients, nor dropped.
+    public boolean apply(Player player, CraftPlan plan) {
+        if (plan.isEmpty()) {
+            return true;
+        }
+
+        PlayerInventory inventory = player.getInventory();
+        ItemStack[] contents = inventory.getStorageContents();
+        String[] keys = new String[contents.length];
+        boolean[] changed = new boolean[contents.length];
+
+        for (int slot = 0; slot < contents.length; slot++) {
+            if (contents[slot] != null && !contents[slot].getType().isAir()) {
+                keys[slot] = ItemUtils.getIngredientKey(contents[slot]);
+            } else {
+                contents[slot] = null;
+            }
+        }
+
+        // Removals first, so freed slots can take new results
+        for (Map.Entry<String, Integer> change : plan.getNetChanges().entrySet()) {
+            int remaining = -change.getValue();
+
+            for (int slot = 0; slot < contents.length && remaining > 0; slot++) {
+                if (!change.getKey().equals(keys[slot])) {
+                    continue;
+                }
+
+                int taken = Math.min(remaining, contents[slot].getAmount());
+                setAmount(contents, keys, slot, contents[slot].getAmount() - taken);
+                changed[slot] = true;
+                remaining -= taken;
+            }
+
+            if (remaining > 0) {
+                return false;
+            }
+        }
+
+        for (Map.Entry<String, Integer> change : plan.getNetChanges().entrySet()) {
+            if (change.getValue() <= 0) {
+                continue;
+            }
+
+            ItemStack prototype = plan.getResultItem(change.getKey());
+            int maxStackSize = prototype.getMaxStackSize();
+            int remaining = change.getValue();
+
+            // Top up existing stacks of the same item, like addItem does
+            for (int slot = 0; slot < contents.length && remaining > 0; slot++) {
+                if (!change.getKey().equals(keys[slot]) || contents[slot].getAmount() >= maxStackSize
+                        || !contents[slot].isSimilar(prototype)) {
+                    continue;
+                }
+
+                int added = Math.min(remaining, maxStackSize - contents[slot].getAmount());
+                setAmount(contents, keys, slot, contents[slot].getAmount() + added);
+                changed[slot] = true;
+                remaining -= added;
+            }
+
+            // Then start new stacks in empty slots
+            for (int slot = 0; slot < contents.length && remaining > 0; slot++) {
+                if (contents[slot] != null) {
+                    continue;
+                }
+
+                int added = Math.min(remaining, maxStackSize);
+                contents[slot] = prototype.clone();
+                contents[slot].setAmount(added);
+                keys[slot] = change.getKey();
+                changed[slot] = true;
+                remaining -= added;
+            }
+
+            if (remaining > 0) {
+                return false;
+            }
+        }
+
+        int changedSlots = 0;
+        for (boolean slotChanged : changed) {
+            if (slotChanged) {
+                changedSlots++;
+            }
+        }
+
+        if (changedSlots > 0) {
+            inventory.setStorageContents(contents);
+            bulkWrites++;
+            slotWritesSaved += changedSlots - 1;
+        }
+        return true;
+    }
+
+    // Works on a copy so the live inventory only changes on the final commit
+    private void setAmount(ItemStack[] contents, String[] keys, int slot, int amount) {
+        if (amount <= 0) {
+            contents[slot] = null;
+            keys[slot] = null;
+            return;
+        }
+
+        ItemStack copy = contents[slot].clone();
+        copy.setAmount(amount);
+        contents[slot] = copy;
+    }
+
+    public long getBulkWrites() {
+        return bulkWrites;
+    }
+
+    public long getSlotWritesSaved() {
+        return slotWritesSaved;
+    }
+
+    public int getMaxCraftableAmount(InventoryHistogram histogram, CraftingManager.CraftingRecipe recipe) {
+        int maxCraftable = Integer.MAX_VALUE;
+
+        for (Map.Entry<String, Integer> requirement : recipe.getRequirements().entrySet()) {
+            int available = histogram.getCount(requirement.getKey());
+            int needed = requirement.getValue();
+
+            if (available < needed) {
+                return 0;
+            }
+
+            maxCraftable = Math.min(maxCraftable, available / needed);
+        }
+
+        return maxCraftable == Integer.MAX_VALUE ? 0 : maxCraftable;
+    }
+
+    // A batch of (recipe, multiplier) crafts plus their combined effect per ingredient key
+    public static class CraftPlan {
+        private final List<PlannedCraft> crafts = new ArrayList<>();
+        private final Map<String, Integer> netChanges = new LinkedHashMap<>();
+        private final Map<String, ItemStack> resultItems = new HashMap<>();
+
+        public void add(CraftingManager.CraftingRecipe recipe, int multiplier) {
+            crafts.add(new PlannedCraft(recipe, multiplier));
+
+            for (Map.Entry<String, Integer> requirement : recipe.getRequirements().entrySet()) {
+                netChanges.merge(requirement.getKey(), -requirement.getValue() * multiplier, Integer::sum);
+            }
+            netChanges.merge(recipe.getResultKey(), multiplier, Integer::sum);
+            resultItems.putIfAbsent(recipe.getResultKey(), recipe.getResult());
+        }
+
+        public boolean isEmpty() { return crafts.isEmpty(); }
+        public List<PlannedCraft> getCrafts() { return Collections.unmodifiableList(crafts); }
+        public Map<String, Integer> getNetChanges() { return Collections.unmodifiableMap(netChanges); }
+        public ItemStack getResultItem(String resultKey) { return resultItems.get(resultKey); }
+    }
+
+    public static class PlannedCraft {
+        private final CraftingManager.CraftingRecipe recipe;
+        private final int multiplier;
+
+        public PlannedCraft(CraftingManager.CraftingRecipe recipe, int multiplier) {
+            this.recipe = recipe;
+            this.multiplier = multiplier;
+        }
+
+        public CraftingManager.CraftingRecipe getRecipe() { return recipe; }
+        public int getMultiplier() { return multiplier; }
+    }
+}
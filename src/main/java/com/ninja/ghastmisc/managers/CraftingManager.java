@@ -2,22 +2,19 @@ package com.ninja.ghastmisc.managers;
 
 import com.ninja.ghastmisc.GhastMiscPlugin;
 import com.ninja.ghastmisc.utils.ItemUtils;
-import com.ninja.ghastmisc.utils.ColorUtils;
-import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.command.CommandSender;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.inventory.meta.SkullMeta;
 
 import java.util.*;
 
 public class CraftingManager {
     private final GhastMiscPlugin plugin;
-    private final Map<String, ItemStack> customIngredients = new HashMap<>();
-    private final Map<String, CraftingRecipe> customRecipes = new HashMap<>();
+    // Replaced as a whole on every load, so readers never see a half-loaded state
+    private volatile RecipeRegistry registry = RecipeRegistry.EMPTY;
 
     public CraftingManager(GhastMiscPlugin plugin) {
         this.plugin = plugin;
@@ -33,8 +30,8 @@ public class CraftingManager {
     }
 
     public void loadCraftingData() {
-        customIngredients.clear();
-        customRecipes.clear();
+        Map<String, ItemStack> customIngredients = new LinkedHashMap<>();
+        Map<String, CraftingRecipe> customRecipes = new LinkedHashMap<>();
 
         ConfigurationSection ingredients = plugin.getConfigManager()
                 .getCraftingConfig()
@@ -59,32 +56,172 @@ public class CraftingManager {
 
         // Load recipes with null checks
         if (recipes != null) {
+            // Recipes may use other recipes' results as ingredients, so build every result first
+            Map<String, ItemStack> resultItems = new LinkedHashMap<>();
             for (String key : recipes.getKeys(false)) {
                 ConfigurationSection recipe = recipes.getConfigurationSection(key);
                 if (recipe != null) {
-                    CraftingRecipe craftingRecipe = loadRecipe(key, recipe);
-                    if (craftingRecipe != null) {
-                        customRecipes.put(key, craftingRecipe);
+                    // createCustomItemFromRecipe logs and returns null for a bad material
+                    ItemStack resultItem = ItemUtils.createCustomItemFromRecipe(recipe);
+                    if (resultItem == null) {
+                        plugin.getLogger().warning("Invalid result item in recipe " + key + " - recipe skipped");
+                        continue;
                     }
+                    resultItems.put(key, resultItem);
+                }
+            }
+
+            for (Map.Entry<String, ItemStack> entry : resultItems.entrySet()) {
+                ConfigurationSection recipe = recipes.getConfigurationSection(entry.getKey());
+                CraftingRecipe craftingRecipe = loadRecipe(entry.getKey(), recipe, entry.getValue(),
+                        customIngredients, resultItems);
+                if (craftingRecipe != null) {
+                    customRecipes.put(entry.getKey(), craftingRecipe);
                 }
             }
         }
 
+        registry = new RecipeRegistry(registry.getVersion() + 1, customIngredients, customRecipes,
+                buildCraftOrder(customRecipes), plugin.getLogger());
+
         plugin.getLogger().info("Loaded " + customIngredients.size() + " ingredients and " +
-                customRecipes.size() + " recipes");
+                customRecipes.size() + " recipes (registry version " + registry.getVersion() + ")");
     }
 
-    private CraftingRecipe loadRecipe(String id, ConfigurationSection config) {
+    // Orders recipes so every recipe comes after the recipes whose results it consumes (Kahn's algorithm).
+    // Self-consuming recipes and dependency cycles are reported; recipes left over are appended in config order.
+    private List<CraftingRecipe> buildCraftOrder(Map<String, CraftingRecipe> customRecipes) {
+        Map<String, List<CraftingRecipe>> consumers = new HashMap<>();
+        Map<String, Integer> pendingInputs = new HashMap<>();
+        List<String> selfConsuming = new ArrayList<>();
+
+        for (CraftingRecipe recipe : customRecipes.values()) {
+            int inputs = 0;
+            for (RecipeIngredient ingredient : recipe.getIngredients().values()) {
+                if (!ingredient.isRecipeResult() || !customRecipes.containsKey(ingredient.getName())) {
+                    continue;
+                }
+                // A recipe can still be ordered when it uses its own result, so that is not an edge
+                if (ingredient.getName().equals(recipe.getId())) {
+                    if (!selfConsuming.contains(recipe.getId())) {
+                        selfConsuming.add(recipe.getId());
+                    }
+                    continue;
+                }
+                consumers.computeIfAbsent(ingredient.getName(), k -> new ArrayList<>()).add(recipe);
+                inputs++;
+            }
+            pendingInputs.put(recipe.getId(), inputs);
+        }
+
+        if (!selfConsuming.isEmpty()) {
+            plugin.getLogger().warning("Recipes using their own result as an ingredient: " + String.join(", ", selfConsuming)
+                    + " - these recipes only craft when the player already has their result");
+        }
+
+        List<CraftingRecipe> order = new ArrayList<>(customRecipes.size());
+        Deque<CraftingRecipe> ready = new ArrayDeque<>();
+        for (CraftingRecipe recipe : customRecipes.values()) {
+            if (pendingInputs.get(recipe.getId()) == 0) {
+                ready.add(recipe);
+            }
+        }
+
+        while (!ready.isEmpty()) {
+            CraftingRecipe recipe = ready.poll();
+            order.add(recipe);
+
+            for (CraftingRecipe consumer : consumers.getOrDefault(recipe.getId(), Collections.emptyList())) {
+                if (pendingInputs.merge(consumer.getId(), -1, Integer::sum) == 0) {
+                    ready.add(consumer);
+                }
+            }
+        }
+
+        if (order.size() < customRecipes.size()) {
+            // Left over: recipes in a cycle plus recipes that only depend on one
+            Set<String> leftover = new LinkedHashSet<>();
+            for (CraftingRecipe recipe : customRecipes.values()) {
+                if (pendingInputs.get(recipe.getId()) > 0) {
+                    leftover.add(recipe.getId());
+                    order.add(recipe);
+                }
+            }
+
+            Set<String> downstream = new LinkedHashSet<>(leftover);
+            for (List<String> cycle : findCycles(leftover, consumers)) {
+                downstream.removeAll(cycle);
+                plugin.getLogger().warning("Recipe dependency cycle detected between: " + String.join(", ", cycle)
+                        + " - these recipes will not cascade in a single auto-craft pass");
+            }
+            if (!downstream.isEmpty()) {
+                plugin.getLogger().warning("Recipes depending on a cycle: " + String.join(", ", downstream)
+                        + " - these recipes will not cascade in a single auto-craft pass");
+            }
+        }
+
+        return Collections.unmodifiableList(order);
+    }
+
+    // Strongly connected components with more than one recipe (Tarjan), restricted to the given recipes
+    private List<List<String>> findCycles(Set<String> recipeIds, Map<String, List<CraftingRecipe>> consumers) {
+        Map<String, Integer> index = new HashMap<>();
+        Map<String, Integer> lowLink = new HashMap<>();
+        Deque<String> stack = new ArrayDeque<>();
+        Set<String> onStack = new HashSet<>();
+        List<List<String>> cycles = new ArrayList<>();
+
+        for (String id : recipeIds) {
+            if (!index.containsKey(id)) {
+                connect(id, recipeIds, consumers, index, lowLink, stack, onStack, cycles);
+            }
+        }
+        return cycles;
+    }
+
+    private void connect(String id, Set<String> recipeIds, Map<String, List<CraftingRecipe>> consumers,
+                         Map<String, Integer> index, Map<String, Integer> lowLink, Deque<String> stack,
+                         Set<String> onStack, List<List<String>> cycles) {
+        index.put(id, index.size());
+        lowLink.put(id, index.get(id));
+        stack.push(id);
+        onStack.add(id);
+
+        for (CraftingRecipe consumer : consumers.getOrDefault(id, Collections.emptyList())) {
+            String next = consumer.getId();
+            if (!recipeIds.contains(next)) {
+                continue;
+            }
+            if (!index.containsKey(next)) {
+                connect(next, recipeIds, consumers, index, lowLink, stack, onStack, cycles);
+                lowLink.put(id, Math.min(lowLink.get(id), lowLink.get(next)));
+            } else if (onStack.contains(next)) {
+                lowLink.put(id, Math.min(lowLink.get(id), index.get(next)));
+            }
+        }
+
+        if (lowLink.get(id).equals(index.get(id))) {
+            List<String> component = new ArrayList<>();
+            String member;
+            do {
+                member = stack.pop();
+                onStack.remove(member);
+                component.add(member);
+            } while (!member.equals(id));
+
+            if (component.size() > 1) {
+                Collections.reverse(component);
+                cycles.add(component);
+            }
+        }
+    }
+
+    private CraftingRecipe loadRecipe(String id, ConfigurationSection config, ItemStack resultItem,
+                                      Map<String, ItemStack> ingredientItems, Map<String, ItemStack> resultItems) {
         try {
-            String itemName = config.getString("itemname", "");
-            Material material = Material.valueOf(config.getString("material", "STONE"));
-            List<String> lore = config.getStringList("lore");
             String permission = config.getString("permission");
-            boolean glow = config.getBoolean("glow", false);
             boolean noVanilla = config.getBoolean("no-vanilla", false);
-            int customModelData = config.getInt("custom_model_data", 0);
 
-            ConfigurationSection flags = config.getConfigurationSection("flags");
             ConfigurationSection recipeSection = config.getConfigurationSection("recipe");
             ConfigurationSection effects = config.getConfigurationSection("effects");
 
@@ -92,23 +229,30 @@ public class CraftingManager {
                 return null;
             }
 
+            // A recipe with a bad slot would silently become cheaper, so reject it as a whole
             Map<Integer, RecipeIngredient> recipeIngredients = new HashMap<>();
             for (String slotStr : recipeSection.getKeys(false)) {
+                int slot;
                 try {
-                    int slot = Integer.parseInt(slotStr);
-                    if (slot >= 1 && slot <= 9) {
-                        String ingredientData = recipeSection.getString(slotStr);
-                        RecipeIngredient ingredient = parseIngredient(ingredientData);
-                        if (ingredient != null) {
-                            recipeIngredients.put(slot, ingredient);
-                        }
-                    }
+                    slot = Integer.parseInt(slotStr);
                 } catch (NumberFormatException e) {
-                    plugin.getLogger().warning("Invalid slot number in recipe " + id + ": " + slotStr);
+                    slot = 0;
                 }
-            }
 
-            ItemStack resultItem = ItemUtils.createCustomItemFromRecipe(config);
+                if (slot < 1 || slot > 9) {
+                    plugin.getLogger().warning("Invalid slot number in recipe " + id + ": " + slotStr + " - recipe skipped");
+                    return null;
+                }
+
+                String ingredientData = recipeSection.getString(slotStr);
+                RecipeIngredient ingredient = parseIngredient(ingredientData, ingredientItems, resultItems);
+                if (ingredient == null) {
+                    plugin.getLogger().warning("Invalid ingredient '" + ingredientData + "' in slot " + slot
+                            + " of recipe " + id + " - recipe skipped");
+                    return null;
+                }
+                recipeIngredients.put(slot, ingredient);
+            }
 
             return new CraftingRecipe(id, resultItem, recipeIngredients, permission, noVanilla, effects);
 
@@ -118,7 +262,14 @@ public class CraftingManager {
         }
     }
 
-    private RecipeIngredient parseIngredient(String ingredientData) {
+    // Resolves "name:amount" to a typed ingredient: a custom ingredient, another recipe's result or an
+    // item Material. Returns null for anything that cannot be crafted with.
+    private RecipeIngredient parseIngredient(String ingredientData, Map<String, ItemStack> ingredientItems,
+                                             Map<String, ItemStack> resultItems) {
+        if (ingredientData == null) {
+            return null;
+        }
+
         String[] parts = ingredientData.split(":");
         if (parts.length != 2) {
             return null;
@@ -133,117 +284,39 @@ public class CraftingManager {
             return null;
         }
 
-        // Check if it's a custom ingredient
-        if (customIngredients.containsKey(ingredientName)) {
-            return new RecipeIngredient(ingredientName, amount, true);
-        }
-
-        // Check if it's a vanilla material
-        try {
-            Material material = Material.valueOf(ingredientName.toUpperCase());
-            return new RecipeIngredient(ingredientName, amount, false);
-        } catch (IllegalArgumentException e) {
+        if (amount <= 0) {
             return null;
         }
-    }
-
-    public void openCraftingGUI(Player player) {
-        ConfigurationSection guiConfig = plugin.getConfigManager().getGuiConfig();
 
-        int size = guiConfig.getInt("crafting-gui.size", 45);
-        String title = ColorUtils.colorize(guiConfig.getString("crafting-gui.title", "§6Custom Crafting Table"));
-
-        Inventory gui = Bukkit.createInventory(player, size, title);
-
-        // Load background items
-        ConfigurationSection backgroundSection = guiConfig.getConfigurationSection("crafting-gui.background");
-        if (backgroundSection != null) {
-            for (String slotStr : backgroundSection.getKeys(false)) {
-                try {
-                    int slot = Integer.parseInt(slotStr);
-                    if (slot >= 0 && slot < size) {
-                        ConfigurationSection itemSection = backgroundSection.getConfigurationSection(slotStr);
-                        if (itemSection != null) {
-                            ItemStack item = ItemUtils.createCustomItem(itemSection);
-                            if (item != null) {
-                                gui.setItem(slot, item);
-                            }
-                        }
-                    }
-                } catch (NumberFormatException e) {
-                    plugin.getLogger().warning("Invalid slot in GUI background: " + slotStr);
-                }
-            }
-        }
-
-        // Load additional items
-        ConfigurationSection additionalSection = guiConfig.getConfigurationSection("crafting-gui.additional-items");
-        if (additionalSection != null) {
-            for (String itemKey : additionalSection.getKeys(false)) {
-                ConfigurationSection itemSection = additionalSection.getConfigurationSection(itemKey);
-                if (itemSection != null) {
-                    int slot = itemSection.getInt("slot", -1);
-                    if (slot >= 0 && slot < size) {
-                        ItemStack item = createSpecialItem(itemSection);
-                        if (item != null) {
-                            gui.setItem(slot, item);
-                        }
-                    }
-                }
-            }
+        // Check if it's a custom ingredient
+        ItemStack customItem = ingredientItems.get(ingredientName);
+        if (customItem != null) {
+            return new RecipeIngredient(ingredientName, amount, true, false,
+                    ItemUtils.customIngredientKey(ingredientName), customItem);
         }
 
-        // Set default glass panes for non-configured slots
-        ItemStack glassPane = ItemUtils.createGuiItem(Material.BLACK_STAINED_GLASS_PANE, " ", "");
-        for (int i = 0; i < size; i++) {
-            if (gui.getItem(i) == null && !isCraftingSlot(i) && !isResultSlot(i)) {
-                gui.setItem(i, glassPane);
-            }
+        // Check if it's another recipe's result
+        ItemStack resultItem = resultItems.get(ingredientName);
+        if (resultItem != null) {
+            return new RecipeIngredient(ingredientName, amount, false, true,
+                    ItemUtils.recipeResultKey(ingredientName), resultItem);
         }
 
-        player.openInventory(gui);
-        plugin.getMessageManager().sendMessage(player, "crafting.gui-opened");
-    }
-
-    private ItemStack createSpecialItem(ConfigurationSection config) {
-        String materialName = config.getString("material", "STONE");
-        Material material = Material.valueOf(materialName.toUpperCase());
-
-        ItemStack item = new ItemStack(material);
-
-        // Handle player head with texture
-        if (material == Material.PLAYER_HEAD) {
-            String texture = config.getString("texture");
-            if (texture != null && !texture.isEmpty()) {
-                SkullMeta meta = (SkullMeta) item.getItemMeta();
-                if (meta != null) {
-                    ItemUtils.setSkullTexture(meta, texture);
-                    item.setItemMeta(meta);
-                }
-            }
+        // Check if it's a vanilla material
+        Material material = Material.matchMaterial(ingredientName);
+        if (material == null || !material.isItem() || material.isAir()) {
+            return null;
         }
 
-        // Apply other properties
-        ItemStack finalItem = ItemUtils.createCustomItem(config);
-        return finalItem != null ? finalItem : item;
+        return new RecipeIngredient(ingredientName, amount, false, false,
+                ItemUtils.vanillaKey(material), new ItemStack(material));
     }
 
-    private boolean isCraftingSlot(int slot) {
-        ConfigurationSection guiConfig = plugin.getConfigManager().getGuiConfig();
-        List<Integer> craftingSlots = guiConfig.getIntegerList("crafting-gui.crafting-slots");
-
-        if (craftingSlots.isEmpty()) {
-            // Default crafting slots
-            return (slot >= 10 && slot <= 12) || (slot >= 19 && slot <= 21) || (slot >= 28 && slot <= 30);
-        }
-
-        return craftingSlots.contains(slot);
-    }
+    public void openCraftingGUI(Player player) {
+        Inventory gui = plugin.getGuiManager().createMenu(GhastMenuHolder.MenuType.CRAFTING);
 
-    private boolean isResultSlot(int slot) {
-        ConfigurationSection guiConfig = plugin.getConfigManager().getGuiConfig();
-        int resultSlot = guiConfig.getInt("crafting-gui.result-slot", 24);
-        return slot == resultSlot;
+        player.openInventory(gui);
+        plugin.getMessageManager().sendMessage(player, "crafting.gui-opened");
     }
 
     public void processCompactor(Player player, ItemStack[] items) {
@@ -257,17 +330,19 @@ public class CraftingManager {
     }
 
     public void listRecipes(CommandSender sender) {
+        RecipeRegistry registry = this.registry;
         sender.sendMessage("§6Custom Recipes:");
-        for (String recipeId : customRecipes.keySet()) {
-            CraftingRecipe recipe = customRecipes.get(recipeId);
+        for (String recipeId : registry.getRecipes().keySet()) {
+            CraftingRecipe recipe = registry.getRecipes().get(recipeId);
             sender.sendMessage("§7- §f" + recipeId + " §8(§f" + recipe.getResult().getType() + "§8)");
         }
     }
 
     public void listIngredients(CommandSender sender) {
+        RecipeRegistry registry = this.registry;
         sender.sendMessage("§6Custom Ingredients:");
-        for (String ingredientId : customIngredients.keySet()) {
-            ItemStack ingredient = customIngredients.get(ingredientId);
+        for (String ingredientId : registry.getIngredients().keySet()) {
+            ItemStack ingredient = registry.getIngredients().get(ingredientId);
             sender.sendMessage("§7- §f" + ingredientId + " §8(§f" + ingredient.getType() + "§8)");
         }
     }
@@ -295,23 +370,26 @@ public class CraftingManager {
     }
 
     public void giveItem(CommandSender sender, Player player, String itemId, int amount) {
-        if (customIngredients.containsKey(itemId)) {
-            ItemStack item = customIngredients.get(itemId).clone();
+        RecipeRegistry registry = this.registry;
+        if (registry.getIngredients().containsKey(itemId)) {
+            ItemStack item = registry.getIngredients().get(itemId).clone();
             item.setAmount(Math.min(amount, 64));
 
             if (ItemUtils.hasInventorySpace(player.getInventory(), item)) {
                 player.getInventory().addItem(item);
+                plugin.getAutoCraftManager().markDirty(player.getUniqueId());
                 plugin.getMessageManager().sendMessage(sender, "crafting.item-given",
                         "amount", String.valueOf(amount), "item", itemId, "player", player.getName());
             } else {
                 plugin.getMessageManager().sendMessage(sender, "crafting.inventory-full");
             }
-        } else if (customRecipes.containsKey(itemId)) {
-            ItemStack item = customRecipes.get(itemId).getResult().clone();
+        } else if (registry.getRecipes().containsKey(itemId)) {
+            ItemStack item = registry.getRecipes().get(itemId).getResult().clone();
             item.setAmount(Math.min(amount, 64));
 
             if (ItemUtils.hasInventorySpace(player.getInventory(), item)) {
                 player.getInventory().addItem(item);
+                plugin.getAutoCraftManager().markDirty(player.getUniqueId());
                 plugin.getMessageManager().sendMessage(sender, "crafting.item-given",
                         "amount", String.valueOf(amount), "item", itemId, "player", player.getName());
             } else {
@@ -323,13 +401,14 @@ public class CraftingManager {
     }
 
     public void takeItem(CommandSender sender, Player player, String itemId, int amount) {
-        if (customIngredients.containsKey(itemId)) {
-            ItemStack item = customIngredients.get(itemId);
+        RecipeRegistry registry = this.registry;
+        if (registry.getIngredients().containsKey(itemId)) {
+            ItemStack item = registry.getIngredients().get(itemId);
             int removed = ItemUtils.removeItems(player.getInventory(), item, amount);
             plugin.getMessageManager().sendMessage(sender, "crafting.item-taken",
                     "amount", String.valueOf(removed), "item", itemId, "player", player.getName());
-        } else if (customRecipes.containsKey(itemId)) {
-            ItemStack item = customRecipes.get(itemId).getResult();
+        } else if (registry.getRecipes().containsKey(itemId)) {
+            ItemStack item = registry.getRecipes().get(itemId).getResult();
             int removed = ItemUtils.removeItems(player.getInventory(), item, amount);
             plugin.getMessageManager().sendMessage(sender, "crafting.item-taken",
                     "amount", String.valueOf(removed), "item", itemId, "player", player.getName());
@@ -339,37 +418,23 @@ public class CraftingManager {
     }
 
     public void viewRecipe(Player player, String itemId) {
-        if (!customRecipes.containsKey(itemId)) {
+        RecipeRegistry registry = this.registry;
+        if (!registry.getRecipes().containsKey(itemId)) {
             plugin.getMessageManager().sendMessage(player, "crafting.recipe-not-found", "id", itemId);
             return;
         }
 
-        CraftingRecipe recipe = customRecipes.get(itemId);
-        Inventory gui = Bukkit.createInventory(player, 45, "§6Recipe: " + itemId);
-
-        // Fill with glass panes first
-        ItemStack glassPane = ItemUtils.createGuiItem(Material.BLACK_STAINED_GLASS_PANE, " ", "");
-        for (int i = 0; i < 45; i++) {
-            gui.setItem(i, glassPane);
-        }
+        CraftingRecipe recipe = registry.getRecipes().get(itemId);
+        Inventory gui = plugin.getGuiManager().createMenu(GhastMenuHolder.MenuType.RECIPE_VIEW, itemId);
 
         // Add recipe items to GUI
         for (Map.Entry<Integer, RecipeIngredient> entry : recipe.getIngredients().entrySet()) {
             int slot = convertSlotToGUI(entry.getKey());
             RecipeIngredient ingredient = entry.getValue();
 
-            ItemStack item;
-            if (ingredient.isCustom()) {
-                item = customIngredients.get(ingredient.getName());
-            } else {
-                item = new ItemStack(Material.valueOf(ingredient.getName().toUpperCase()));
-            }
-
-            if (item != null) {
-                item = item.clone();
-                item.setAmount(ingredient.getAmount());
-                gui.setItem(slot, item);
-            }
+            ItemStack item = ingredient.getPrototype().clone();
+            item.setAmount(ingredient.getAmount());
+            gui.setItem(slot, item);
         }
 
         // Add result item
@@ -379,64 +444,29 @@ public class CraftingManager {
     }
 
     public void openRecipeEditor(Player player, String itemId) {
-        Inventory gui = Bukkit.createInventory(player, 45, "§6Edit Recipe: " + itemId);
+        RecipeRegistry registry = this.registry;
+        Inventory gui = plugin.getGuiManager().createMenu(GhastMenuHolder.MenuType.RECIPE_EDITOR, itemId);
 
         // Load existing recipe if it exists
-        CraftingRecipe recipe = customRecipes.get(itemId);
+        CraftingRecipe recipe = registry.getRecipes().get(itemId);
         if (recipe != null) {
             // Add existing recipe items to GUI
             for (Map.Entry<Integer, RecipeIngredient> entry : recipe.getIngredients().entrySet()) {
                 int slot = convertSlotToGUI(entry.getKey());
                 RecipeIngredient ingredient = entry.getValue();
 
-                ItemStack item;
-                if (ingredient.isCustom()) {
-                    item = customIngredients.get(ingredient.getName());
-                } else {
-                    item = new ItemStack(Material.valueOf(ingredient.getName().toUpperCase()));
-                }
-
-                if (item != null) {
-                    item = item.clone();
-                    item.setAmount(ingredient.getAmount());
-                    gui.setItem(slot, item);
-                }
+                ItemStack item = ingredient.getPrototype().clone();
+                item.setAmount(ingredient.getAmount());
+                gui.setItem(slot, item);
             }
 
             // Add result item
             gui.setItem(24, recipe.getResult());
         }
 
-        // Add control buttons
-        ItemStack cancelButton = ItemUtils.createGuiItem(Material.RED_CONCRETE,
-                plugin.getMessageManager().getMessage("gui.cancel") != null ?
-                        plugin.getMessageManager().getMessage("gui.cancel") : "§cCancel",
-                plugin.getMessageManager().getMessage("gui.cancel-lore") != null ?
-                        plugin.getMessageManager().getMessage("gui.cancel-lore") : "§7Click to cancel editing");
-        gui.setItem(36, cancelButton);
-
-        ItemStack saveButton = ItemUtils.createGuiItem(Material.LIME_CONCRETE,
-                plugin.getMessageManager().getMessage("gui.save") != null ?
-                        plugin.getMessageManager().getMessage("gui.save") : "§aSave",
-                plugin.getMessageManager().getMessage("gui.save-lore") != null ?
-                        plugin.getMessageManager().getMessage("gui.save-lore") : "§7Click to save recipe");
-        gui.setItem(44, saveButton);
-
-        // Fill other slots with glass panes
-        ItemStack filler = ItemUtils.createGuiItem(Material.BLACK_STAINED_GLASS_PANE, " ", "");
-        for (int i = 0; i < 45; i++) {
-            if (gui.getItem(i) == null && !isCraftingSlotInEditor(i) && i != 24 && i != 36 && i != 44) {
-                gui.setItem(i, filler);
-            }
-        }
-
         player.openInventory(gui);
     }
 
-    private boolean isCraftingSlotInEditor(int slot) {
-        return (slot >= 10 && slot <= 12) || (slot >= 19 && slot <= 21) || (slot >= 28 && slot <= 30);
-    }
-
     private int convertSlotToGUI(int craftingSlot) {
         // Convert crafting slot (1-9) to GUI slot
         switch (craftingSlot) {
@@ -454,15 +484,37 @@ public class CraftingManager {
     }
 
     public Set<String> getRecipeIds() {
-        return new HashSet<>(customRecipes.keySet());
+        return registry.getRecipes().keySet();
+    }
+
+    // Current snapshot of everything loaded; hold on to it for a consistent view across calls
+    public RecipeRegistry getRegistry() {
+        return registry;
     }
 
     public Map<String, ItemStack> getCustomIngredients() {
-        return new HashMap<>(customIngredients);
+        return registry.getIngredients();
     }
 
     public Map<String, CraftingRecipe> getCustomRecipes() {
-        return new HashMap<>(customRecipes);
+        return registry.getRecipes();
+    }
+
+    public CraftingRecipe getRecipe(String recipeId) {
+        return registry.getRecipe(recipeId);
+    }
+
+    // Recipes in dependency order: producers before the recipes that consume their results
+    public List<CraftingRecipe> getCraftOrder() {
+        return registry.getCraftOrder();
+    }
+
+    public CraftingRecipe findRecipeByGrid(ItemStack[] grid) {
+        return registry.findRecipeByGrid(grid);
+    }
+
+    public Set<String> getRecipePermissions() {
+        return registry.getRecipePermissions();
     }
 
     // Inner classes for recipe data
@@ -473,6 +525,9 @@ public class CraftingManager {
         private final String permission;
         private final boolean noVanilla;
         private final ConfigurationSection effects;
+        private final String resultKey;
+        private final Map<String, Integer> requirements;
+        private final String gridSignature;
 
         public CraftingRecipe(String id, ItemStack result, Map<Integer, RecipeIngredient> ingredients,
                               String permission, boolean noVanilla, ConfigurationSection effects) {
@@ -482,6 +537,20 @@ public class CraftingManager {
             this.permission = permission;
             this.noVanilla = noVanilla;
             this.effects = effects;
+            this.resultKey = ItemUtils.recipeResultKey(id);
+
+            // The same ingredient can appear in several slots, so sum per ingredient key
+            Map<String, Integer> totals = new LinkedHashMap<>();
+            for (RecipeIngredient ingredient : ingredients.values()) {
+                totals.merge(ingredient.getKey(), ingredient.getAmount(), Integer::sum);
+            }
+            this.requirements = Collections.unmodifiableMap(totals);
+
+            String[] slotKeys = new String[9];
+            for (Map.Entry<Integer, RecipeIngredient> entry : ingredients.entrySet()) {
+                slotKeys[entry.getKey() - 1] = entry.getValue().getKey();
+            }
+            this.gridSignature = RecipeRegistry.gridSignature(slotKeys);
         }
 
         // Getters
@@ -491,22 +560,37 @@ public class CraftingManager {
         public String getPermission() { return permission; }
         public boolean isNoVanilla() { return noVanilla; }
         public ConfigurationSection getEffects() { return effects; }
+        public String getResultKey() { return resultKey; }
+        public Map<String, Integer> getRequirements() { return requirements; }
+        public String getGridSignature() { return gridSignature; }
     }
 
+    // Resolved at load: the prototype is the custom ingredient, the source recipe's result or a
+    // plain stack of the Material, so no lookups or Material parsing are needed afterwards
     public static class RecipeIngredient {
         private final String name;
         private final int amount;
         private final boolean custom;
+        private final boolean recipeResult;
+        private final String key;
+        private final ItemStack prototype;
 
-        public RecipeIngredient(String name, int amount, boolean custom) {
+        public RecipeIngredient(String name, int amount, boolean custom, boolean recipeResult,
+                                String key, ItemStack prototype) {
             this.name = name;
             this.amount = amount;
             this.custom = custom;
+            this.recipeResult = recipeResult;
+            this.key = key;
+            this.prototype = prototype;
         }
 
         // Getters
         public String getName() { return name; }
         public int getAmount() { return amount; }
         public boolean isCustom() { return custom; }
+        public boolean isRecipeResult() { return recipeResult; }
+        public String getKey() { return key; }
+        public ItemStack getPrototype() { return prototype; }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,63 @@
+package com.ninja.ghastmisc.managers;
+
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
+
+// Owner of every menu this plugin opens. Listeners identify our menus with an instanceof check
+// on the holder instead of comparing titles, and get the menu's type and context from it.
+public class GhastMenuHolder implements InventoryHolder {
+
+    public enum MenuType {
+        CRAFTING,
+        COMPACTOR,
+        RECIPE_VIEW,
+        RECIPE_EDITOR,
+        VOUCHER_CONFIRM
+    }
+
+    private final MenuType type;
+    // Layout the menu was built with, so a reload never changes slots under an open menu
+    private final GuiLayout layout;
+    // Recipe shown or edited, only for the recipe menus
+    private final String recipeId;
+    // Player inventory slot the voucher was used from, only for the confirmation menu
+    private int sourceSlot = -1;
+    private Inventory inventory;
+
+    GhastMenuHolder(MenuType type, GuiLayout layout, String recipeId) {
+        this.type = type;
+        this.layout = layout;
+        this.recipeId = recipeId;
+    }
+
+    // Returns the menu behind the inventory, or null if it is not one of ours
+    public static GhastMenuHolder of(Inventory inventory) {
+        // Our menus are always custom chests; getHolder() on a block inventory takes a snapshot,
+        // so anything with a location is rejected before it is called
+        if (inventory == null || inventory.getType() != InventoryType.CHEST || inventory.getLocation() != null) {
+            return null;
+        }
+
+        InventoryHolder holder = inventory.getHolder();
+        return holder instanceof GhastMenuHolder ? (GhastMenuHolder) holder : null;
+    }
+
+    void setInventory(Inventory inventory) {
+        this.inventory = inventory;
+    }
+
+    void setSourceSlot(int sourceSlot) {
+        this.sourceSlot = sourceSlot;
+    }
+
+    @Override
+    public Inventory getInventory() {
+        return inventory;
+    }
+
+    public MenuType getType() { return type; }
+    public GuiLayout getLayout() { return layout; }
+    public String getRecipeId() { return recipeId; }
+    public int getSourceSlot() { return sourceSlot; }
+}
@@ -0,0 +1,118 @@
+package com.ninja.ghastmisc.managers;
+
+import com.ninja.ghastmisc.utils.ColorUtils;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+// Slot layout of the crafting and compactor menus, compiled from gui.yml once per load so
+// click handlers never touch the config. Immutable; GuiManager swaps in a new one on reload.
+public final class GuiLayout {
+
+    private static final int[] DEFAULT_CRAFTING_SLOTS = {10, 11, 12, 19, 20, 21, 28, 29, 30};
+    private static final int[] DEFAULT_COMPACTOR_SLOTS = {19, 20, 21, 22, 23, 24, 25};
+
+    private final String craftingTitle;
+    private final int craftingSize;
+    private final int resultSlot;
+    // Grid position (0-8) -> GUI slot, and GUI slot -> grid position or -1
+    private final int[] craftingSlots;
+    private final int[] gridIndexBySlot;
+    // Grid slots plus the result slot
+    private final BitSet craftingInteractive = new BitSet();
+
+    private final String compactorTitle;
+    private final int compactorSize;
+    // Selection index -> GUI slot, and GUI slot -> selection index or -1
+    private final int[] compactorSlots;
+    private final int[] compactorIndexBySlot;
+    private final BitSet compactorInteractive = new BitSet();
+
+    private GuiLayout(ConfigurationSection guiConfig) {
+        this.craftingTitle = ColorUtils.colorize(guiConfig.getString("crafting-gui.title", "§6Custom Crafting Table"));
+        this.craftingSize = guiConfig.getInt("crafting-gui.size", 45);
+        this.resultSlot = guiConfig.getInt("crafting-gui.result-slot", 24);
+
+        // Only the first nine slots form the 3x3 grid
+        int[] configuredCrafting = readSlots(guiConfig, "crafting-gui.crafting-slots", DEFAULT_CRAFTING_SLOTS);
+        this.craftingSlots = Arrays.copyOf(configuredCrafting, Math.min(9, configuredCrafting.length));
+        this.gridIndexBySlot = indexBySlot(craftingSlots, craftingSize, craftingInteractive);
+        if (resultSlot >= 0 && resultSlot < craftingSize) {
+            craftingInteractive.set(resultSlot);
+        }
+
+        this.compactorTitle = ColorUtils.colorize(guiConfig.getString("compactor-gui.title", "§6Compactor"));
+        this.compactorSize = guiConfig.getInt("compactor-gui.size", 45);
+        this.compactorSlots = readSlots(guiConfig, "compactor-gui.compactor-slots", DEFAULT_COMPACTOR_SLOTS);
+        this.compactorIndexBySlot = indexBySlot(compactorSlots, compactorSize, compactorInteractive);
+    }
+
+    public static GuiLayout compile(ConfigurationSection guiConfig) {
+        return new GuiLayout(guiConfig);
+    }
+
+    private static int[] readSlots(ConfigurationSection guiConfig, String path, int[] defaults) {
+        List<Integer> slots = guiConfig.getIntegerList(path);
+        if (slots.isEmpty()) {
+            return defaults.clone();
+        }
+        return slots.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    // Slots outside the menu are ignored, so a bad config can never index out of bounds
+    private static int[] indexBySlot(int[] slots, int size, BitSet interactive) {
+        int[] indexBySlot = new int[Math.max(size, 0)];
+        Arrays.fill(indexBySlot, -1);
+
+        for (int i = 0; i < slots.length; i++) {
+            int slot = slots[i];
+            if (slot >= 0 && slot < indexBySlot.length && indexBySlot[slot] == -1) {
+                indexBySlot[slot] = i;
+                interactive.set(slot);
+            }
+        }
+        return indexBySlot;
+    }
+
+    public String getCraftingTitle() { return craftingTitle; }
+    public int getCraftingSize() { return craftingSize; }
+    public int getResultSlot() { return resultSlot; }
+    public int getGridSize() { return craftingSlots.length; }
+
+    // GUI slot of the given grid position (0-8), or -1 if the layout has fewer slots
+    public int getCraftingSlot(int gridIndex) {
+        return gridIndex >= 0 && gridIndex < craftingSlots.length ? craftingSlots[gridIndex] : -1;
+    }
+
+    public boolean isCraftingSlot(int slot) {
+        return slot >= 0 && slot < gridIndexBySlot.length && gridIndexBySlot[slot] != -1;
+    }
+
+    public boolean isResultSlot(int slot) {
+        return slot == resultSlot;
+    }
+
+    // Slots the player may put items into or take them from
+    public boolean isCraftingInteractive(int slot) {
+        return slot >= 0 && craftingInteractive.get(slot);
+    }
+
+    public String getCompactorTitle() { return compactorTitle; }
+    public int getCompactorSize() { return compactorSize; }
+    public int getCompactorSlotCount() { return compactorSlots.length; }
+
+    public int getCompactorSlot(int index) {
+        return index >= 0 && index < compactorSlots.length ? compactorSlots[index] : -1;
+    }
+
+    // Selection index shown in the given GUI slot, or -1
+    public int getCompactorIndex(int slot) {
+        return slot >= 0 && slot < compactorIndexBySlot.length ? compactorIndexBySlot[slot] : -1;
+    }
+
+    public boolean isCompactorSlot(int slot) {
+        return slot >= 0 && compactorInteractive.get(slot);
+    }
+}
@@ -0,0 +1,225 @@
+package com.ninja.ghastmisc.managers;
+
+import com.ninja.ghastmisc.GhastMiscPlugin;
+import com.ninja.ghastmisc.utils.ItemUtils;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.SkullMeta;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+// Builds the static part of every menu once per load. Opening a menu copies a template
+// into a new inventory and only fills in the per-player slots.
+public class GuiManager {
+
+    private static final int[] EDITOR_GRID_SLOTS = {10, 11, 12, 19, 20, 21, 28, 29, 30};
+
+    private final GhastMiscPlugin plugin;
+
+    private volatile GuiLayout layout;
+    private volatile Map<GhastMenuHolder.MenuType, MenuTemplate> templates = Collections.emptyMap();
+
+    public GuiManager(GhastMiscPlugin plugin) {
+        this.plugin = plugin;
+        loadTemplates();
+    }
+
+    // Must run after gui.yml and messages are loaded
+    public void loadTemplates() {
+        ConfigurationSection guiConfig = plugin.getConfigManager().getGuiConfig();
+        GuiLayout layout = GuiLayout.compile(guiConfig);
+        Map<GhastMenuHolder.MenuType, MenuTemplate> templates = new EnumMap<>(GhastMenuHolder.MenuType.class);
+        ItemStack filler = ItemUtils.createGuiItem(Material.BLACK_STAINED_GLASS_PANE, " ", "");
+
+        // Crafting table
+        ItemStack[] crafting = new ItemStack[layout.getCraftingSize()];
+        loadBackground(guiConfig, "crafting-gui", crafting);
+        loadAdditionalItems(guiConfig, "crafting-gui", crafting);
+        for (int slot = 0; slot < crafting.length; slot++) {
+            if (crafting[slot] == null && !layout.isCraftingInteractive(slot)) {
+                crafting[slot] = filler;
+            }
+        }
+        templates.put(GhastMenuHolder.MenuType.CRAFTING, new MenuTemplate(layout.getCraftingTitle(), crafting));
+
+        // Compactor
+        ItemStack[] compactor = new ItemStack[layout.getCompactorSize()];
+        loadBackground(guiConfig, "compactor-gui", compactor);
+        loadAdditionalItems(guiConfig, "compactor-gui", compactor);
+        // Compactor slots are always left open for the player's selections
+        for (int slot = 0; slot < compactor.length; slot++) {
+            if (layout.isCompactorSlot(slot)) {
+                compactor[slot] = null;
+            } else if (compactor[slot] == null) {
+                compactor[slot] = filler;
+            }
+        }
+        templates.put(GhastMenuHolder.MenuType.COMPACTOR, new MenuTemplate(layout.getCompactorTitle(), compactor));
+
+        // Recipe view: ingredients and result are laid over a full pane background
+        ItemStack[] recipeView = new ItemStack[45];
+        fill(recipeView, filler);
+        templates.put(GhastMenuHolder.MenuType.RECIPE_VIEW, new MenuTemplate("§6Recipe: ", recipeView));
+
+        // Recipe editor: grid and result slot stay empty for editing
+        ItemStack[] recipeEditor = new ItemStack[45];
+        recipeEditor[36] = ItemUtils.createGuiItem(Material.RED_CONCRETE,
+                getMessage("gui.cancel", "§cCancel"), getMessage("gui.cancel-lore", "§7Click to cancel editing"));
+        recipeEditor[44] = ItemUtils.createGuiItem(Material.LIME_CONCRETE,
+                getMessage("gui.save", "§aSave"), getMessage("gui.save-lore", "§7Click to save recipe"));
+        fill(recipeEditor, filler, EDITOR_GRID_SLOTS, 24);
+        templates.put(GhastMenuHolder.MenuType.RECIPE_EDITOR, new MenuTemplate("§6Edit Recipe: ", recipeEditor));
+
+        // Voucher confirmation: the voucher itself goes in slot 22 when opened
+        ItemStack[] voucherConfirm = new ItemStack[45];
+        voucherConfirm[20] = ItemUtils.createGuiItem(Material.LIME_CONCRETE,
+                getMessage("gui.confirm", "§aConfirm"), getMessage("gui.confirm-lore", "§7Click to use voucher"));
+        voucherConfirm[24] = ItemUtils.createGuiItem(Material.RED_CONCRETE,
+                getMessage("gui.cancel", "§cCancel"), getMessage("gui.cancel-lore", "§7Click to cancel"));
+        fill(voucherConfirm, filler);
+        templates.put(GhastMenuHolder.MenuType.VOUCHER_CONFIRM, new MenuTemplate("§6Confirm Voucher Use", voucherConfirm));
+
+        // Publish only once everything compiled, layout first so clicks match the menus they land in
+        this.layout = layout;
+        this.templates = templates;
+    }
+
+    private void loadBackground(ConfigurationSection guiConfig, String menu, ItemStack[] contents) {
+        ConfigurationSection backgroundSection = guiConfig.getConfigurationSection(menu + ".background");
+        if (backgroundSection == null) {
+            return;
+        }
+
+        for (String slotStr : backgroundSection.getKeys(false)) {
+            try {
+                int slot = Integer.parseInt(slotStr);
+                if (slot >= 0 && slot < contents.length) {
+                    ConfigurationSection itemSection = backgroundSection.getConfigurationSection(slotStr);
+                    if (itemSection != null) {
+                        ItemStack item = ItemUtils.createCustomItem(itemSection);
+                        if (item != null) {
+                            contents[slot] = item;
+                        }
+                    }
+                }
+            } catch (NumberFormatException e) {
+                plugin.getLogger().warning("Invalid slot in " + menu + " background: " + slotStr);
+            }
+        }
+    }
+
+    private void loadAdditionalItems(ConfigurationSection guiConfig, String menu, ItemStack[] contents) {
+        ConfigurationSection additionalSection = guiConfig.getConfigurationSection(menu + ".additional-items");
+        if (additionalSection == null) {
+            return;
+        }
+
+        for (String itemKey : additionalSection.getKeys(false)) {
+            ConfigurationSection itemSection = additionalSection.getConfigurationSection(itemKey);
+            if (itemSection != null) {
+                int slot = itemSection.getInt("slot", -1);
+                if (slot >= 0 && slot < contents.length) {
+                    try {
+                        ItemStack item = createSpecialItem(itemSection);
+                        if (item != null) {
+                            contents[slot] = item;
+                        }
+                    } catch (IllegalArgumentException e) {
+                        plugin.getLogger().warning("Invalid material for " + menu + " item " + itemKey);
+                    }
+                }
+            }
+        }
+    }
+
+    private ItemStack createSpecialItem(ConfigurationSection config) {
+        String materialName = config.getString("material", "STONE");
+        Material material = Material.valueOf(materialName.toUpperCase());
+
+        ItemStack item = new ItemStack(material);
+
+        // Handle player head with texture
+        if (material == Material.PLAYER_HEAD) {
+            String texture = config.getString("texture");
+            if (texture != null && !texture.isEmpty()) {
+                SkullMeta meta = (SkullMeta) item.getItemMeta();
+                if (meta != null) {
+                    ItemUtils.setSkullTexture(meta, texture);
+                    item.setItemMeta(meta);
+                }
+            }
+        }
+
+        // Apply other properties
+        ItemStack finalItem = ItemUtils.createCustomItem(config);
+        return finalItem != null ? finalItem : item;
+    }
+
+    // Puts the filler in every empty slot except the open ones
+    private void fill(ItemStack[] contents, ItemStack filler, int[] openSlots, int... moreOpenSlots) {
+        boolean[] open = new boolean[contents.length];
+        for (int slot : openSlots) {
+            if (slot >= 0 && slot < open.length) {
+                open[slot] = true;
+            }
+        }
+        for (int slot : moreOpenSlots) {
+            if (slot >= 0 && slot < open.length) {
+                open[slot] = true;
+            }
+        }
+
+        for (int i = 0; i < contents.length; i++) {
+            if (contents[i] == null && !open[i]) {
+                contents[i] = filler;
+            }
+        }
+    }
+
+    private void fill(ItemStack[] contents, ItemStack filler) {
+        fill(contents, filler, new int[0]);
+    }
+
+    private String getMessage(String key, String fallback) {
+        String message = plugin.getMessageManager().getMessage(key);
+        return message != null ? message : fallback;
+    }
+
+    public GuiLayout getLayout() {
+        return layout;
+    }
+
+    public Inventory createMenu(GhastMenuHolder.MenuType type) {
+        return createMenu(type, null);
+    }
+
+    // Copies the template into a new inventory owned by a GhastMenuHolder; the caller fills in
+    // the dynamic slots and opens it. Recipe menus get the recipe id appended to their title.
+    public Inventory createMenu(GhastMenuHolder.MenuType type, String recipeId) {
+        MenuTemplate template = templates.get(type);
+        GhastMenuHolder holder = new GhastMenuHolder(type, layout, recipeId);
+        String title = recipeId != null ? template.title + recipeId : template.title;
+
+        // setContents copies each stack into the inventory, so the template itself is never shared
+        Inventory inventory = Bukkit.createInventory(holder, template.contents.length, title);
+        inventory.setContents(template.contents);
+        holder.setInventory(inventory);
+        return inventory;
+    }
+
+    // Title plus pre-rendered contents, only ever copied into new inventories
+    private static final class MenuTemplate {
+        private final String title;
+        private final ItemStack[] contents;
+
+        private MenuTemplate(String title, ItemStack[] contents) {
+            this.title = title;
+            this.contents = contents;
+        }
+    }
+}
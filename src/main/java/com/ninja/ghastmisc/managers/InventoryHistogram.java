@@ -0,0 +1,134 @@
+package com.ninja.ghastmisc.managers;
+
+import com.ninja.ghastmisc.utils.ItemUtils;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+public class InventoryHistogram {
+
+    // Ingredient key -> total amount held
+    private final Map<String, Integer> counts = new HashMap<>();
+    // Result key -> room left in partially filled stacks that the result stacks onto
+    private final Map<String, Integer> freeSpace = new HashMap<>();
+    private int emptySlots = 0;
+
+    private InventoryHistogram() {
+    }
+
+    // Single pass over the contents, reading each slot's meta at most once. resultItems maps a
+    // recipe result key to the item it produces (null for other keys); a partial stack only counts
+    // as room when the result is similar to it, since addItem would not merge them otherwise.
+    public static InventoryHistogram of(ItemStack[] contents, Function<String, ItemStack> resultItems) {
+        InventoryHistogram histogram = new InventoryHistogram();
+
+        for (ItemStack item : contents) {
+            if (item == null || item.getType().isAir()) {
+                histogram.emptySlots++;
+                continue;
+            }
+
+            String key = ItemUtils.getIngredientKey(item);
+            histogram.count(key, item.getAmount(), resultRoom(item, key, resultItems));
+        }
+
+        return histogram;
+    }
+
+    // Same as of(ItemStack[]) but from a snapshot, so it can run off the main thread
+    public static InventoryHistogram of(InventorySnapshot snapshot) {
+        InventoryHistogram histogram = new InventoryHistogram();
+
+        for (int slot = 0; slot < snapshot.size(); slot++) {
+            if (snapshot.getAmount(slot) == 0) {
+                histogram.emptySlots++;
+                continue;
+            }
+
+            histogram.count(snapshot.getKey(slot), snapshot.getAmount(slot), snapshot.getResultRoom(slot));
+        }
+
+        return histogram;
+    }
+
+    // Room left in the stack for results of its key: zero unless the key's result is similar to it
+    public static int resultRoom(ItemStack item, String key, Function<String, ItemStack> resultItems) {
+        int room = item.getMaxStackSize() - item.getAmount();
+        if (key == null || room <= 0) {
+            return 0;
+        }
+
+        ItemStack result = resultItems.apply(key);
+        return result != null && result.isSimilar(item) ? room : 0;
+    }
+
+    private void count(String key, int amount, int room) {
+        if (key == null) {
+            return;
+        }
+
+        counts.merge(key, amount, Integer::sum);
+        if (room > 0) {
+            freeSpace.merge(key, room, Integer::sum);
+        }
+    }
+
+    public int getCount(String key) {
+        return counts.getOrDefault(key, 0);
+    }
+
+    public boolean contains(String key) {
+        return getCount(key) > 0;
+    }
+
+    // Keys currently held, as a live view
+    public Set<String> getKeys() {
+        return Collections.unmodifiableSet(counts.keySet());
+    }
+
+    public int getEmptySlots() {
+        return emptySlots;
+    }
+
+    // How many items with this key (and stack size) still fit in the inventory
+    public int getAvailableSpace(String key, int maxStackSize) {
+        return freeSpace.getOrDefault(key, 0) + emptySlots * maxStackSize;
+    }
+
+    public void remove(String key, int amount) {
+        int remaining = getCount(key) - amount;
+        if (remaining > 0) {
+            counts.put(key, remaining);
+        } else {
+            counts.remove(key);
+        }
+    }
+
+    // Mirrors how addItem fills partial stacks first, then empty slots.
+    // Slots freed by removals are not counted, which keeps the space estimate conservative.
+    public void add(String key, int amount, int maxStackSize) {
+        if (amount <= 0) {
+            return;
+        }
+
+        counts.merge(key, amount, Integer::sum);
+
+        int partial = freeSpace.getOrDefault(key, 0);
+        int intoPartial = Math.min(partial, amount);
+        int rest = amount - intoPartial;
+        int newSlots = (rest + maxStackSize - 1) / maxStackSize;
+
+        emptySlots = Math.max(0, emptySlots - newSlots);
+
+        int newPartial = partial - intoPartial + (newSlots * maxStackSize - rest);
+        if (newPartial > 0) {
+            freeSpace.put(key, newPartial);
+        } else {
+            freeSpace.remove(key);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.ninja.ghastmisc.managers;
+
+import com.ninja.ghastmisc.utils.ItemUtils;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Function;
+
+// Immutable copy of what crafting needs from a player's storage contents, safe to plan on
+// another thread. Taken on the main thread; apply only if matches() still holds.
+public final class InventorySnapshot {
+
+    private final String[] keys;
+    private final int[] amounts;
+    // Room per slot for results of the slot's key, see InventoryHistogram.resultRoom
+    private final int[] resultRooms;
+    private final long version;
+    private final long fingerprint;
+    private final Set<String> permissions;
+
+    private InventorySnapshot(String[] keys, int[] amounts, int[] resultRooms,
+                              long version, long fingerprint, Set<String> permissions) {
+        this.keys = keys;
+        this.amounts = amounts;
+        this.resultRooms = resultRooms;
+        this.version = version;
+        this.fingerprint = fingerprint;
+        this.permissions = permissions;
+    }
+
+    // Must run on the main thread. Only the recipe permissions the player holds are copied.
+    public static InventorySnapshot capture(Player player, long version, Collection<String> recipePermissions,
+                                            Function<String, ItemStack> resultItems) {
+        ItemStack[] contents = player.getInventory().getStorageContents();
+        String[] keys = new String[contents.length];
+        int[] amounts = new int[contents.length];
+        int[] resultRooms = new int[contents.length];
+        long fingerprint = 1;
+
+        for (int slot = 0; slot < contents.length; slot++) {
+            ItemStack item = contents[slot];
+            if (item == null || item.getType().isAir()) {
+                fingerprint = fingerprint * 31;
+                continue;
+            }
+
+            keys[slot] = ItemUtils.getIngredientKey(item);
+            amounts[slot] = item.getAmount();
+            resultRooms[slot] = InventoryHistogram.resultRoom(item, keys[slot], resultItems);
+            fingerprint = fingerprint * 31 + slotHash(item, keys[slot]);
+        }
+
+        Set<String> granted = new HashSet<>();
+        for (String permission : recipePermissions) {
+            if (player.hasPermission(permission)) {
+                granted.add(permission);
+            }
+        }
+
+        return new InventorySnapshot(keys, amounts, resultRooms, version,
+                fingerprint, Collections.unmodifiableSet(granted));
+    }
+
+    // Ingredient key and amount per slot, so a custom item never passes for a vanilla one of the same type
+    public static long fingerprint(ItemStack[] contents) {
+        long hash = 1;
+        for (ItemStack item : contents) {
+            boolean empty = item == null || item.getType().isAir();
+            hash = hash * 31 + (empty ? 0 : slotHash(item, ItemUtils.getIngredientKey(item)));
+        }
+        return hash;
+    }
+
+    // Items that are no ingredient (key null) still count by type
+    private static int slotHash(ItemStack item, String key) {
+        return (key == null ? item.getType().hashCode() : key.hashCode()) * 31 + item.getAmount();
+    }
+
+    // True if the player's inventory is still the one this snapshot was taken from
+    public boolean matches(Player player, long currentVersion) {
+        return version == currentVersion
+                && fingerprint == fingerprint(player.getInventory().getStorageContents());
+    }
+
+    public int size() { return keys.length; }
+    public String getKey(int slot) { return keys[slot]; }
+    public int getAmount(int slot) { return amounts[slot]; }
+    public int getResultRoom(int slot) { return resultRooms[slot]; }
+    public Set<String> getPermissions() { return permissions; }
+}
@@ -0,0 +1,124 @@
+package com.ninja.ghastmisc.managers;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+// Player data stored as one small JSON file per player, spread over 256 folders
+// by the first two characters of the UUID (playerdata/ab/ab12....json):
+// {"autocraft": true, "compactor": {"0": "iron_block", "3": "gold_block"}}
+public class JsonPlayerDataStorage implements PlayerDataStorage {
+
+    private final File directory;
+
+    public JsonPlayerDataStorage(File directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public void open() throws IOException {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory.getPath());
+        }
+    }
+
+    @Override
+    public PlayerData load(UUID playerId) throws IOException {
+        File file = playerFile(playerId);
+        if (!file.exists()) {
+            return PlayerData.EMPTY;
+        }
+
+        try (JsonReader reader = new JsonReader(Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8))) {
+            boolean autoCraftEnabled = false;
+            Map<Integer, String> items = new HashMap<>();
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (name.equals("autocraft")) {
+                    autoCraftEnabled = reader.nextBoolean();
+                } else if (name.equals("compactor")) {
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        int slot = Integer.parseInt(reader.nextName());
+                        items.put(slot, reader.nextString());
+                    }
+                    reader.endObject();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            return new PlayerData(items, autoCraftEnabled);
+        } catch (IllegalStateException | NumberFormatException e) {
+            // Wrong value types or a non-numeric slot; MalformedJsonException is already an IOException
+            throw new IOException("Invalid player data in " + file.getName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void saveAll(Map<UUID, PlayerData> batch) throws IOException {
+        for (Map.Entry<UUID, PlayerData> entry : batch.entrySet()) {
+            save(entry.getKey(), entry.getValue());
+        }
+    }
+
+    // Writes a temp file and moves it over the player's file, so a crash never leaves a partial file
+    private void save(UUID playerId, PlayerData data) throws IOException {
+        File file = playerFile(playerId);
+        if (data.isEmpty()) {
+            Files.deleteIfExists(file.toPath());
+            return;
+        }
+
+        File folder = file.getParentFile();
+        if (!folder.exists() && !folder.mkdirs()) {
+            throw new IOException("Could not create " + folder.getPath());
+        }
+
+        Path target = file.toPath();
+        Path temp = target.resolveSibling(file.getName() + ".tmp");
+
+        try (Writer out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8);
+             JsonWriter writer = new JsonWriter(out)) {
+            writer.setIndent("  ");
+            writer.beginObject();
+            writer.name("autocraft").value(data.isAutoCraftEnabled());
+            writer.name("compactor").beginObject();
+            for (Map.Entry<Integer, String> item : data.getCompactorItems().entrySet()) {
+                writer.name(String.valueOf(item.getKey())).value(item.getValue());
+            }
+            writer.endObject();
+            writer.endObject();
+        }
+
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @Override
+    public void close() {
+        // Every write is complete when saveAll returns
+    }
+
+    private File playerFile(UUID playerId) {
+        String id = playerId.toString();
+        return new File(new File(directory, id.substring(0, 2)), id + ".json");
+    }
+}
@@ -71,6 +71,7 @@ public class MessageManager {
                 config.set("crafting.recipe-not-found", "&cRecipe not found: {id}");
                 config.set("crafting.no-permission-craft", "&cYou don't have permission to craft this item!");
                 config.set("crafting.inventory-full", "&cYour inventory is full! Cannot craft items.");
+                config.set("crafting.craft-all-partial", "&eCrafted {amount}x, the rest stays in the grid because your inventory is full.");
                 config.set("crafting.compactor-opened", "&aCompactor opened! Click items in your inventory to add them.");
                 config.set("crafting.autocraft-enabled", "&a&l[AutoCraft] &aAuto-crafting enabled!");
                 config.set("crafting.autocraft-disabled", "&c&l[AutoCraft] &cAuto-crafting disabled!");
@@ -96,6 +97,10 @@ public class MessageManager {
                 config.set("voucher.dropped-warning", "&eWarning: You dropped a voucher! Be careful not to lose it.");
                 config.set("voucher.error-using", "&cError using voucher!");
                 config.set("voucher.error-finding", "&cError: Could not find voucher in inventory!");
+                config.set("voucher.bulk-started", "&7Giving {amount}x {type} voucher to {players} players...");
+                config.set("voucher.bulk-finished", "&aGave {given} {type} vouchers to {players} players");
+                config.set("voucher.bulk-full", "&e{count} players had no room for {missed} vouchers: {names}");
+                config.set("voucher.bulk-offline", "&7{count} players went offline before receiving theirs");
 
                 // Command Messages
                 config.set("commands.replaced", "&aCommand replaced: {command}");
@@ -0,0 +1,98 @@
+package com.ninja.ghastmisc.managers;
+
+import com.ninja.ghastmisc.GhastMiscPlugin;
+import me.clip.placeholderapi.PlaceholderAPI;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.entity.Player;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+// PlaceholderAPI access for vouchers. Whether PlaceholderAPI is installed is checked once per load,
+// and condition placeholders are cached per player for vouchers.yml settings.placeholder-cache-ms.
+// While a confirmation menu is open the player's values are held past that time, so the check on
+// right-click and the one on confirm share a single evaluation. Main thread only.
+public class PlaceholderResolver {
+
+    private final GhastMiscPlugin plugin;
+    private final Map<UUID, Map<String, CachedValue>> cache = new HashMap<>();
+    // Players with a pending confirmation; their cached values do not expire until released
+    private final Set<UUID> held = new HashSet<>();
+
+    private boolean available;
+    private long ttlMillis = 1000;
+
+    // Settings are loaded with the vouchers, see VoucherManager.loadVoucherData
+    public PlaceholderResolver(GhastMiscPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    public void loadSettings() {
+        // softdepend guarantees PlaceholderAPI is enabled before us if it is installed
+        available = plugin.getServer().getPluginManager().getPlugin("PlaceholderAPI") != null;
+
+        ConfigurationSection settings = plugin.getConfigManager().getVouchersConfig().getConfigurationSection("settings");
+        ttlMillis = Math.max(0L, settings == null ? 1000L : settings.getLong("placeholder-cache-ms", 1000L));
+        cache.clear();
+        held.clear();
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    // Cached result of a condition placeholder; text is returned unchanged without PlaceholderAPI
+    public String resolve(Player player, String placeholder) {
+        if (!available) {
+            return placeholder;
+        }
+        if (ttlMillis == 0) {
+            return PlaceholderAPI.setPlaceholders(player, placeholder);
+        }
+
+        long now = System.currentTimeMillis();
+        Map<String, CachedValue> playerCache = cache.computeIfAbsent(player.getUniqueId(), k -> new HashMap<>());
+        CachedValue cached = playerCache.get(placeholder);
+        if (cached != null && (cached.expiresAt > now || held.contains(player.getUniqueId()))) {
+            return cached.value;
+        }
+
+        String value = PlaceholderAPI.setPlaceholders(player, placeholder);
+        playerCache.put(placeholder, new CachedValue(value, now + ttlMillis));
+        return value;
+    }
+
+    // Uncached, for one-off text such as voucher commands
+    public String apply(Player player, String text) {
+        return available ? PlaceholderAPI.setPlaceholders(player, text) : text;
+    }
+
+    // Keeps the player's cached values until release or invalidate, for the time a confirmation is open
+    public void hold(UUID playerId) {
+        held.add(playerId);
+    }
+
+    // Cached values expire normally again
+    public void release(UUID playerId) {
+        held.remove(playerId);
+    }
+
+    // Called once a voucher command is dispatched, since it changes what the placeholders return
+    public void invalidate(UUID playerId) {
+        cache.remove(playerId);
+        held.remove(playerId);
+    }
+
+    private static final class CachedValue {
+        private final String value;
+        private final long expiresAt;
+
+        private CachedValue(String value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.ninja.ghastmisc.managers;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+// Everything persisted per player: compactor selections (slot -> item id) and the autocraft toggle
+public final class PlayerData {
+
+    public static final PlayerData EMPTY = new PlayerData(Collections.emptyMap(), false);
+
+    private final Map<Integer, String> compactorItems;
+    private final boolean autoCraftEnabled;
+
+    public PlayerData(Map<Integer, String> compactorItems, boolean autoCraftEnabled) {
+        this.compactorItems = Collections.unmodifiableMap(new HashMap<>(compactorItems));
+        this.autoCraftEnabled = autoCraftEnabled;
+    }
+
+    public Map<Integer, String> getCompactorItems() { return compactorItems; }
+    public boolean isAutoCraftEnabled() { return autoCraftEnabled; }
+
+    // Nothing worth storing; backends delete the player instead
+    public boolean isEmpty() {
+        return compactorItems.isEmpty() && !autoCraftEnabled;
+    }
+}
@@ -0,0 +1,20 @@
+package com.ninja.ghastmisc.managers;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.UUID;
+
+// Backend for per-player data. Calls block, and StorageManager only makes them from its I/O thread,
+// so implementations need no locking of their own.
+public interface PlayerDataStorage {
+
+    void open() throws IOException;
+
+    // PlayerData.EMPTY if nothing is stored for the player
+    PlayerData load(UUID playerId) throws IOException;
+
+    // Writes the whole batch at once; players with empty data are removed
+    void saveAll(Map<UUID, PlayerData> batch) throws IOException;
+
+    void close();
+}
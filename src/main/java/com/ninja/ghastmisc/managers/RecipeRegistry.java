@@ -0,0 +1,195 @@
+package com.ninja.ghastmisc.managers;
+
+import com.ninja.ghastmisc.utils.ItemUtils;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+// Immutable snapshot of all loaded ingredients, recipes and their lookup indexes.
+// CraftingManager swaps in a new one on every load; readers keep using the one they hold,
+// and caches can compare getVersion() to know when to drop what they derived from it.
+public final class RecipeRegistry {
+
+    public static final RecipeRegistry EMPTY = new RecipeRegistry(0L, Collections.emptyMap(),
+            Collections.emptyMap(), Collections.emptyList(), null);
+
+    private final long version;
+    private final Map<String, ItemStack> ingredients;
+    private final Map<String, CraftingManager.CraftingRecipe> recipes;
+    private final List<CraftingManager.CraftingRecipe> craftOrder;
+
+    // Lookup indexes, all keyed by ingredient key
+    private final Map<String, List<CraftingManager.CraftingRecipe>> recipesByIngredient = new HashMap<>();
+    private final Map<String, List<CraftingManager.CraftingRecipe>> recipesByAnchor = new HashMap<>();
+    private final Map<String, List<CraftingManager.CraftingRecipe>> recipesByResult = new HashMap<>();
+    private final Map<String, String> anchorKeys = new HashMap<>();
+    private final Map<String, Integer> craftIndex = new HashMap<>();
+    private final Set<String> recipePermissions;
+    // Shaped grid signature (ingredient key per slot 1-9) -> recipe
+    private final Map<String, CraftingManager.CraftingRecipe> recipesBySignature = new HashMap<>();
+
+    // Maps are copied; craftOrder must list every recipe in dependency order
+    public RecipeRegistry(long version, Map<String, ItemStack> ingredients,
+                          Map<String, CraftingManager.CraftingRecipe> recipes,
+                          List<CraftingManager.CraftingRecipe> craftOrder, Logger logger) {
+        this.version = version;
+        this.ingredients = Collections.unmodifiableMap(new LinkedHashMap<>(ingredients));
+        this.recipes = Collections.unmodifiableMap(new LinkedHashMap<>(recipes));
+        this.craftOrder = Collections.unmodifiableList(new ArrayList<>(craftOrder));
+
+        Set<String> permissions = new HashSet<>();
+
+        for (int i = 0; i < this.craftOrder.size(); i++) {
+            CraftingManager.CraftingRecipe recipe = this.craftOrder.get(i);
+            craftIndex.put(recipe.getId(), i);
+            recipesByResult.computeIfAbsent(recipe.getResultKey(), k -> new ArrayList<>()).add(recipe);
+            if (recipe.getPermission() != null) {
+                permissions.add(recipe.getPermission());
+            }
+
+            for (String key : recipe.getRequirements().keySet()) {
+                recipesByIngredient.computeIfAbsent(key, k -> new ArrayList<>()).add(recipe);
+            }
+        }
+
+        // Each recipe is anchored on its rarest ingredient (the one used by the fewest recipes),
+        // so a player only has to hold that one key for the recipe to be considered at all
+        for (CraftingManager.CraftingRecipe recipe : this.craftOrder) {
+            String anchor = null;
+            int anchorUses = Integer.MAX_VALUE;
+
+            for (String key : recipe.getRequirements().keySet()) {
+                int uses = recipesByIngredient.get(key).size();
+                if (uses < anchorUses) {
+                    anchor = key;
+                    anchorUses = uses;
+                }
+            }
+
+            // Recipes without ingredients can never be crafted, so they are not anchored
+            if (anchor != null) {
+                anchorKeys.put(recipe.getId(), anchor);
+                recipesByAnchor.computeIfAbsent(anchor, k -> new ArrayList<>()).add(recipe);
+            }
+        }
+
+        // Grid lookups keep config order, so the first recipe wins if two share a grid
+        for (CraftingManager.CraftingRecipe recipe : this.recipes.values()) {
+            CraftingManager.CraftingRecipe existing = recipesBySignature.putIfAbsent(recipe.getGridSignature(), recipe);
+            if (existing != null && logger != null) {
+                logger.warning("Recipe " + recipe.getId() + " has the same grid as " + existing.getId()
+                        + " and can only be crafted through auto-craft");
+            }
+        }
+
+        this.recipePermissions = Collections.unmodifiableSet(permissions);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Map<String, ItemStack> getIngredients() {
+        return ingredients;
+    }
+
+    public Map<String, CraftingManager.CraftingRecipe> getRecipes() {
+        return recipes;
+    }
+
+    public ItemStack getIngredient(String ingredientId) {
+        return ingredients.get(ingredientId);
+    }
+
+    public CraftingManager.CraftingRecipe getRecipe(String recipeId) {
+        return recipes.get(recipeId);
+    }
+
+    // Recipes in dependency order: producers before the recipes that consume their results
+    public List<CraftingManager.CraftingRecipe> getCraftOrder() {
+        return craftOrder;
+    }
+
+    // Position of the recipe in the craft order
+    public int getCraftIndex(CraftingManager.CraftingRecipe recipe) {
+        return craftIndex.getOrDefault(recipe.getId(), Integer.MAX_VALUE);
+    }
+
+    // Recipes whose rarest ingredient is the given key
+    public List<CraftingManager.CraftingRecipe> getRecipesByAnchor(String ingredientKey) {
+        return recipesByAnchor.getOrDefault(ingredientKey, Collections.emptyList());
+    }
+
+    // Recipes that use the given key anywhere in their grid
+    public List<CraftingManager.CraftingRecipe> getRecipesUsing(String ingredientKey) {
+        return recipesByIngredient.getOrDefault(ingredientKey, Collections.emptyList());
+    }
+
+    // Recipes whose result has the given key
+    public List<CraftingManager.CraftingRecipe> getRecipesProducing(String resultKey) {
+        return recipesByResult.getOrDefault(resultKey, Collections.emptyList());
+    }
+
+    // The item produced for a result key, or null if no recipe produces it
+    public ItemStack getResultItem(String resultKey) {
+        List<CraftingManager.CraftingRecipe> producing = getRecipesProducing(resultKey);
+        return producing.isEmpty() ? null : producing.get(0).getResult();
+    }
+
+    public String getAnchorKey(CraftingManager.CraftingRecipe recipe) {
+        return anchorKeys.get(recipe.getId());
+    }
+
+    // Every distinct permission required by some recipe
+    public Set<String> getRecipePermissions() {
+        return recipePermissions;
+    }
+
+    // Finds the recipe whose shape matches the 9-slot grid and whose amounts are all present
+    public CraftingManager.CraftingRecipe findRecipeByGrid(ItemStack[] grid) {
+        String[] keys = new String[9];
+        for (int i = 0; i < 9; i++) {
+            ItemStack item = i < grid.length ? grid[i] : null;
+            if (item != null && !item.getType().isAir()) {
+                String key = ItemUtils.getIngredientKey(item);
+                // Custom items without an id can never be an ingredient
+                keys[i] = key != null ? key : "?";
+            }
+        }
+
+        CraftingManager.CraftingRecipe recipe = recipesBySignature.get(gridSignature(keys));
+        if (recipe == null) {
+            return null;
+        }
+
+        for (Map.Entry<Integer, CraftingManager.RecipeIngredient> entry : recipe.getIngredients().entrySet()) {
+            if (grid[entry.getKey() - 1].getAmount() < entry.getValue().getAmount()) {
+                return null;
+            }
+        }
+
+        return recipe;
+    }
+
+    // Empty slots are blank, so "a|b||..." and "a|b|c|..." never collide
+    static String gridSignature(String[] slotKeys) {
+        StringBuilder signature = new StringBuilder();
+        for (int i = 0; i < slotKeys.length; i++) {
+            if (i > 0) {
+                signature.append('|');
+            }
+            if (slotKeys[i] != null) {
+                signature.append(slotKeys[i]);
+            }
+        }
+        return signature.toString();
+    }
+}
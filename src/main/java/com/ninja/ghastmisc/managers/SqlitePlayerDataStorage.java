@@ -0,0 +1,166 @@
+package com.ninja.ghastmisc.managers;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+// Player data in an embedded SQLite database (playerdata.db). The driver ships with the server,
+// so nothing has to be installed. One connection, only ever used from StorageManager's I/O thread.
+public class SqlitePlayerDataStorage implements PlayerDataStorage {
+
+    private final File databaseFile;
+    private Connection connection;
+
+    private PreparedStatement selectSettings;
+    private PreparedStatement selectItems;
+    private PreparedStatement upsertSettings;
+    private PreparedStatement deleteSettings;
+    private PreparedStatement deleteItems;
+    private PreparedStatement insertItem;
+
+    public SqlitePlayerDataStorage(File databaseFile) {
+        this.databaseFile = databaseFile;
+    }
+
+    @Override
+    public void open() throws IOException {
+        try {
+            Class.forName("org.sqlite.JDBC");
+            connection = DriverManager.getConnection("jdbc:sqlite:" + databaseFile.getAbsolutePath());
+
+            try (Statement statement = connection.createStatement()) {
+                // WAL keeps readers and the writer from blocking each other and survives crashes
+                statement.execute("PRAGMA journal_mode=WAL");
+                statement.execute("PRAGMA synchronous=NORMAL");
+                statement.execute("CREATE TABLE IF NOT EXISTS player_settings ("
+                        + "uuid TEXT PRIMARY KEY, autocraft INTEGER NOT NULL)");
+                // The primary key doubles as the per-player index for loads
+                statement.execute("CREATE TABLE IF NOT EXISTS compactor_items ("
+                        + "uuid TEXT NOT NULL, slot INTEGER NOT NULL, item_id TEXT NOT NULL, "
+                        + "PRIMARY KEY (uuid, slot))");
+            }
+
+            selectSettings = connection.prepareStatement("SELECT autocraft FROM player_settings WHERE uuid = ?");
+            selectItems = connection.prepareStatement("SELECT slot, item_id FROM compactor_items WHERE uuid = ?");
+            upsertSettings = connection.prepareStatement("INSERT INTO player_settings (uuid, autocraft) VALUES (?, ?) "
+                    + "ON CONFLICT(uuid) DO UPDATE SET autocraft = excluded.autocraft");
+            deleteSettings = connection.prepareStatement("DELETE FROM player_settings WHERE uuid = ?");
+            deleteItems = connection.prepareStatement("DELETE FROM compactor_items WHERE uuid = ?");
+            insertItem = connection.prepareStatement("INSERT INTO compactor_items (uuid, slot, item_id) VALUES (?, ?, ?)");
+        } catch (ClassNotFoundException e) {
+            throw new IOException("SQLite driver not found", e);
+        } catch (SQLException e) {
+            close();
+            throw new IOException("Could not open " + databaseFile.getName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public PlayerData load(UUID playerId) throws IOException {
+        String id = playerId.toString();
+
+        try {
+            boolean autoCraftEnabled = false;
+            selectSettings.setString(1, id);
+            try (ResultSet result = selectSettings.executeQuery()) {
+                if (result.next()) {
+                    autoCraftEnabled = result.getInt(1) != 0;
+                }
+            }
+
+            Map<Integer, String> items = new HashMap<>();
+            selectItems.setString(1, id);
+            try (ResultSet result = selectItems.executeQuery()) {
+                while (result.next()) {
+                    items.put(result.getInt(1), result.getString(2));
+                }
+            }
+
+            return new PlayerData(items, autoCraftEnabled);
+        } catch (SQLException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    // One transaction for the whole batch: settings are upserted, compactor rows replaced
+    @Override
+    public void saveAll(Map<UUID, PlayerData> batch) throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            connection.setAutoCommit(false);
+
+            for (Map.Entry<UUID, PlayerData> entry : batch.entrySet()) {
+                String id = entry.getKey().toString();
+                PlayerData data = entry.getValue();
+
+                deleteItems.setString(1, id);
+                deleteItems.addBatch();
+
+                if (data.isEmpty()) {
+                    deleteSettings.setString(1, id);
+                    deleteSettings.addBatch();
+                    continue;
+                }
+
+                upsertSettings.setString(1, id);
+                upsertSettings.setInt(2, data.isAutoCraftEnabled() ? 1 : 0);
+                upsertSettings.addBatch();
+
+                for (Map.Entry<Integer, String> item : data.getCompactorItems().entrySet()) {
+                    insertItem.setString(1, id);
+                    insertItem.setInt(2, item.getKey());
+                    insertItem.setString(3, item.getValue());
+                    insertItem.addBatch();
+                }
+            }
+
+            // Deletes first, so the fresh compactor rows are not removed again
+            deleteItems.executeBatch();
+            deleteSettings.executeBatch();
+            upsertSettings.executeBatch();
+            insertItem.executeBatch();
+            connection.commit();
+        } catch (SQLException e) {
+            try {
+                connection.rollback();
+            } catch (SQLException ignored) {
+                // The original error is the one worth reporting
+            }
+            throw new IOException(e.getMessage(), e);
+        } finally {
+            try {
+                // A failed batch must not leak into the next one
+                deleteItems.clearBatch();
+                deleteSettings.clearBatch();
+                upsertSettings.clearBatch();
+                insertItem.clearBatch();
+                connection.setAutoCommit(true);
+            } catch (SQLException ignored) {
+                // Connection is broken; the next call reports it
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException ignored) {
+                // Nothing left to do on shutdown
+            }
+            connection = null;
+        }
+    }
+}
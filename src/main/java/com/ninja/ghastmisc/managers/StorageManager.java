@@ -0,0 +1,298 @@
+package com.ninja.ghastmisc.managers;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import com.ninja.ghastmisc.GhastMiscPlugin;
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Loads and saves per-player data (compactor selections, autocraft toggle) through the backend
+// picked by storage.type. Players are loaded on join and saved write-behind: edits only mark them
+// dirty and a delayed task hands a snapshot of every dirty player to the I/O thread in one batch.
+public class StorageManager {
+
+    private final GhastMiscPlugin plugin;
+
+    // Every backend call runs in order on this thread, so a save queued on quit always lands
+    // before the load of the next join
+    private final ExecutorService io = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "GhastMisc-StorageIO");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Only touched from the I/O thread; null if the backend could not be opened
+    private PlayerDataStorage storage;
+
+    private final Set<UUID> dirtyPlayers = new HashSet<>();
+    private BukkitTask saveTask;
+    // Players whose load is in flight -> id of that load, so a load overtaken by quit and rejoin is ignored
+    private final Map<UUID, Long> pendingLoads = new HashMap<>();
+    private long nextLoadId;
+    // Players whose stored data could not be read; they are never saved, so the stored data stays intact
+    private final Set<UUID> failedLoads = new HashSet<>();
+
+    // Settings (crafting.yml -> storage)
+    private String storageType = "json";
+    private long saveDelayTicks = 40;
+    private long shutdownTimeoutMillis = 5000;
+
+    public StorageManager(GhastMiscPlugin plugin) {
+        this.plugin = plugin;
+        loadSettings();
+
+        // The backend only changes on restart
+        PlayerDataStorage configured = createStorage(storageType);
+        File legacyFile = new File(plugin.getDataFolder(), "compactor.json");
+
+        // Queued before any load, so loads already see the migrated data
+        io.execute(() -> {
+            storage = openStorage(configured);
+            if (storage != null && legacyFile.exists()) {
+                migrateLegacy(legacyFile);
+            }
+        });
+
+        // Players already online after a plugin reload
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            loadPlayer(player);
+        }
+    }
+
+    public void loadSettings() {
+        ConfigurationSection settings = plugin.getConfigManager().getCraftingConfig().getConfigurationSection("storage");
+        storageType = settings == null ? "json" : settings.getString("type", "json").toLowerCase();
+        saveDelayTicks = Math.max(1L, settings == null ? 40L : settings.getLong("save-delay-ticks", 40L));
+        shutdownTimeoutMillis = Math.max(0L, settings == null ? 5000L : settings.getLong("shutdown-timeout-ms", 5000L));
+    }
+
+    // Null for an unknown type; never silently swapped for another backend, which would hide the player data
+    private PlayerDataStorage createStorage(String type) {
+        if (type.equals("json")) {
+            return new JsonPlayerDataStorage(new File(plugin.getDataFolder(), "playerdata"));
+        }
+        if (type.equals("sqlite")) {
+            return new SqlitePlayerDataStorage(new File(plugin.getDataFolder(), "playerdata.db"));
+        }
+
+        plugin.getLogger().severe("Unknown storage type '" + type + "' in crafting.yml"
+                + " - compactor selections and autocraft toggles will NOT be loaded or saved");
+        return null;
+    }
+
+    // Runs on the I/O thread. If the backend cannot open, persistence stays off until a restart.
+    private PlayerDataStorage openStorage(PlayerDataStorage configured) {
+        if (configured == null) {
+            return null;
+        }
+
+        try {
+            configured.open();
+            return configured;
+        } catch (IOException e) {
+            plugin.getLogger().severe("Error opening player data storage: " + e.getMessage()
+                    + " - compactor selections and autocraft toggles will NOT be loaded or saved until this is fixed"
+                    + " and the server restarted");
+            return null;
+        }
+    }
+
+    // Moves the old single compactor.json into the backend and renames it to compactor.json.migrated
+    private void migrateLegacy(File legacyFile) {
+        try {
+            Map<String, Map<Integer, String>> data;
+            try (Reader reader = Files.newBufferedReader(legacyFile.toPath(), StandardCharsets.UTF_8)) {
+                data = new Gson().fromJson(reader, new TypeToken<Map<String, Map<Integer, String>>>(){}.getType());
+            }
+
+            Map<UUID, PlayerData> batch = new HashMap<>();
+            if (data != null) {
+                for (Map.Entry<String, Map<Integer, String>> entry : data.entrySet()) {
+                    try {
+                        if (entry.getValue() != null && !entry.getValue().isEmpty()) {
+                            batch.put(UUID.fromString(entry.getKey()), new PlayerData(entry.getValue(), false));
+                        }
+                    } catch (IllegalArgumentException e) {
+                        plugin.getLogger().warning("Invalid UUID in compactor.json: " + entry.getKey());
+                    }
+                }
+            }
+
+            storage.saveAll(batch);
+            Files.move(legacyFile.toPath(), legacyFile.toPath().resolveSibling(legacyFile.getName() + ".migrated"),
+                    StandardCopyOption.REPLACE_EXISTING);
+            plugin.getLogger().info("Migrated compactor data of " + batch.size() + " players from compactor.json");
+        } catch (IOException e) {
+            plugin.getLogger().severe("Error migrating compactor.json: " + e.getMessage());
+        } catch (JsonParseException e) {
+            // Left in place so it can be fixed and migrated on the next start
+            plugin.getLogger().severe("Error migrating compactor.json, the file is not valid JSON: " + e.getMessage());
+        }
+    }
+
+    public void loadPlayer(Player player) {
+        UUID playerId = player.getUniqueId();
+        long loadId = nextLoadId++;
+        pendingLoads.put(playerId, loadId);
+        failedLoads.remove(playerId);
+        plugin.getCompactorManager().beginLoad(playerId);
+        plugin.getAutoCraftManager().beginLoad(playerId);
+
+        io.execute(() -> {
+            PlayerData data;
+            try {
+                // Without a backend nothing is stored, so the player starts empty
+                data = storage == null ? PlayerData.EMPTY : storage.load(playerId);
+            } catch (IOException e) {
+                plugin.getLogger().severe("Error loading player data for " + playerId + ": " + e.getMessage()
+                        + " - their changes will not be saved this session");
+                data = null;
+            }
+
+            PlayerData loaded = data;
+            if (plugin.isEnabled()) {
+                Bukkit.getScheduler().runTask(plugin, () -> applyLoaded(playerId, loadId, loaded));
+            }
+        });
+    }
+
+    // data is null if the load failed
+    private void applyLoaded(UUID playerId, long loadId, PlayerData data) {
+        Long pending = pendingLoads.get(playerId);
+        if (pending == null || pending != loadId) {
+            return;
+        }
+        pendingLoads.remove(playerId);
+
+        Player player = Bukkit.getPlayer(playerId);
+        if (player == null) {
+            return;
+        }
+
+        if (data == null) {
+            // Saving now would replace the unreadable data with whatever the player has in memory
+            failedLoads.add(playerId);
+            dirtyPlayers.remove(playerId);
+            return;
+        }
+
+        // Anything the player changed while the load was in flight wins
+        plugin.getCompactorManager().applyLoaded(playerId, data.getCompactorItems());
+        plugin.getAutoCraftManager().applyLoaded(playerId, data.isAutoCraftEnabled());
+
+        // Saves were held back until the stored data was merged in
+        if (dirtyPlayers.contains(playerId)) {
+            markDirty(playerId);
+        }
+
+        plugin.getAutoCraftManager().markDirty(playerId);
+        plugin.getAutoCraftManager().scheduleIfActive(player);
+    }
+
+    // Schedules a save; changes made before it runs are written together
+    public void markDirty(UUID playerId) {
+        if (failedLoads.contains(playerId)) {
+            return;
+        }
+
+        dirtyPlayers.add(playerId);
+        if (saveTask == null) {
+            saveTask = Bukkit.getScheduler().runTaskLater(plugin, () -> {
+                saveTask = null;
+                saveDirty();
+            }, saveDelayTicks);
+        }
+    }
+
+    // Snapshots every dirty player on the main thread and hands the batch to the I/O thread.
+    // Players still loading stay dirty, as their data is incomplete until the load is merged.
+    public void saveDirty() {
+        Map<UUID, PlayerData> batch = new HashMap<>();
+        Iterator<UUID> iterator = dirtyPlayers.iterator();
+        while (iterator.hasNext()) {
+            UUID playerId = iterator.next();
+            if (!pendingLoads.containsKey(playerId)) {
+                batch.put(playerId, snapshot(playerId));
+                iterator.remove();
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            save(batch);
+        }
+    }
+
+    // Must run before the managers evict the player. A player whose load never finished or failed
+    // is not saved, so partial data cannot overwrite what is stored.
+    public void handleQuit(UUID playerId) {
+        boolean loading = pendingLoads.remove(playerId) != null;
+        boolean failed = failedLoads.remove(playerId);
+        if (dirtyPlayers.remove(playerId) && !loading && !failed) {
+            Map<UUID, PlayerData> batch = new HashMap<>();
+            batch.put(playerId, snapshot(playerId));
+            save(batch);
+        }
+    }
+
+    private PlayerData snapshot(UUID playerId) {
+        return new PlayerData(plugin.getCompactorManager().getSelections(playerId),
+                plugin.getAutoCraftManager().isAutoCraftEnabled(playerId));
+    }
+
+    private void save(Map<UUID, PlayerData> batch) {
+        io.execute(() -> {
+            if (storage == null) {
+                return;
+            }
+
+            try {
+                storage.saveAll(batch);
+            } catch (IOException e) {
+                plugin.getLogger().severe("Error saving player data: " + e.getMessage());
+            }
+        });
+    }
+
+    // Flushes pending changes and waits at most shutdown-timeout-ms for the I/O thread
+    public void shutdown() {
+        if (saveTask != null) {
+            saveTask.cancel();
+            saveTask = null;
+        }
+        saveDirty();
+        io.execute(() -> {
+            if (storage != null) {
+                storage.close();
+            }
+        });
+
+        io.shutdown();
+        try {
+            if (!io.awaitTermination(shutdownTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                plugin.getLogger().warning("Player data was not saved within " + shutdownTimeoutMillis + "ms");
+                io.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            io.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.ninja.ghastmisc.managers;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+// Test applied to a voucher's parsed placeholder, compiled from its condition section once per load.
+// Values and patterns are prepared up front, so a check is one call with no config or type lookups.
+public interface VoucherCondition {
+
+    boolean test(String value);
+
+    // type: equals | in | compare | regex; throws IllegalArgumentException for a bad section
+    static VoucherCondition compile(ConfigurationSection config) {
+        String type = config.getString("type", "equals").toLowerCase(Locale.ROOT);
+        boolean ignoreCase = config.getBoolean("ignore-case", true);
+
+        switch (type) {
+            case "equals":
+                return new Equals(config.getString("value", ""), ignoreCase);
+            case "in":
+                return new In(config.getStringList("values"), ignoreCase);
+            case "compare":
+                return new Compare(config.getString("operator", "=="), config.getDouble("value", 0.0));
+            case "regex":
+                return new Regex(config.getString("pattern", ""), ignoreCase);
+            default:
+                throw new IllegalArgumentException("Unknown condition type '" + type + "'");
+        }
+    }
+
+    final class Equals implements VoucherCondition {
+        private final String expected;
+        private final boolean ignoreCase;
+
+        Equals(String expected, boolean ignoreCase) {
+            this.expected = expected;
+            this.ignoreCase = ignoreCase;
+        }
+
+        @Override
+        public boolean test(String value) {
+            return ignoreCase ? expected.equalsIgnoreCase(value) : expected.equals(value);
+        }
+    }
+
+    final class In implements VoucherCondition {
+        private final Set<String> values = new HashSet<>();
+        private final boolean ignoreCase;
+
+        In(List<String> values, boolean ignoreCase) {
+            this.ignoreCase = ignoreCase;
+            for (String value : values) {
+                this.values.add(ignoreCase ? value.toLowerCase(Locale.ROOT) : value);
+            }
+        }
+
+        @Override
+        public boolean test(String value) {
+            return values.contains(ignoreCase ? value.toLowerCase(Locale.ROOT) : value);
+        }
+    }
+
+    // Numeric comparison; a placeholder that is not a number never matches
+    final class Compare implements VoucherCondition {
+        private final Operator operator;
+        private final double expected;
+
+        Compare(String operator, double expected) {
+            this.operator = Operator.of(operator);
+            this.expected = expected;
+        }
+
+        @Override
+        public boolean test(String value) {
+            double actual;
+            try {
+                actual = Double.parseDouble(value.trim().replace(",", ""));
+            } catch (NumberFormatException e) {
+                return false;
+            }
+            return operator.test(actual, expected);
+        }
+
+        private enum Operator {
+            GREATER, GREATER_OR_EQUAL, LESS, LESS_OR_EQUAL, EQUAL, NOT_EQUAL;
+
+            static Operator of(String symbol) {
+                switch (symbol.trim()) {
+                    case ">": return GREATER;
+                    case ">=": return GREATER_OR_EQUAL;
+                    case "<": return LESS;
+                    case "<=": return LESS_OR_EQUAL;
+                    case "==": return EQUAL;
+                    case "!=": return NOT_EQUAL;
+                    default: throw new IllegalArgumentException("Unknown operator '" + symbol + "'");
+                }
+            }
+
+            boolean test(double actual, double expected) {
+                switch (this) {
+                    case GREATER: return actual > expected;
+                    case GREATER_OR_EQUAL: return actual >= expected;
+                    case LESS: return actual < expected;
+                    case LESS_OR_EQUAL: return actual <= expected;
+                    case EQUAL: return actual == expected;
+                    default: return actual != expected;
+                }
+            }
+        }
+    }
+
+    // The whole placeholder value has to match the pattern
+    final class Regex implements VoucherCondition {
+        private final Pattern pattern;
+
+        Regex(String pattern, boolean ignoreCase) {
+            try {
+                this.pattern = Pattern.compile(pattern, ignoreCase ? Pattern.CASE_INSENSITIVE : 0);
+            } catch (PatternSyntaxException e) {
+                throw new IllegalArgumentException("Invalid pattern '" + pattern + "': " + e.getDescription());
+            }
+        }
+
+        @Override
+        public boolean test(String value) {
+            return pattern.matcher(value).matches();
+        }
+    }
+}
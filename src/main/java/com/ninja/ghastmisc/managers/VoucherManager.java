@@ -3,7 +3,6 @@ package com.ninja.ghastmisc.managers;
 import com.ninja.ghastmisc.GhastMiscPlugin;
 import com.ninja.ghastmisc.utils.ItemUtils;
 import com.ninja.ghastmisc.utils.ColorUtils;
-import me.clip.placeholderapi.PlaceholderAPI;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.command.CommandSender;
@@ -11,39 +10,81 @@ import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class VoucherManager {
 
+    // Distinct (type, time, multiplier) vouchers kept ready to clone
+    private static final int VOUCHER_CACHE_SIZE = 256;
+
     private final GhastMiscPlugin plugin;
     private final Map<UUID, Long> cooldowns = new HashMap<>();
     private final Map<String, VoucherData> voucherTypes = new HashMap<>();
+    private final Map<String, VoucherPrototype> prototypes = new HashMap<>();
+    private final PlaceholderResolver placeholders;
+    private long bulkTickBudgetNanos = 2_000_000L;
+    // Access-ordered, so the least recently issued voucher is dropped first
+    private final Map<String, ItemStack> voucherCache = new LinkedHashMap<String, ItemStack>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ItemStack> eldest) {
+            return size() > VOUCHER_CACHE_SIZE;
+        }
+    };
 
     public VoucherManager(GhastMiscPlugin plugin) {
         this.plugin = plugin;
+        this.placeholders = new PlaceholderResolver(plugin);
         loadVoucherData();
     }
 
     public void loadVoucherData() {
         voucherTypes.clear();
+        prototypes.clear();
+        voucherCache.clear();
+        placeholders.loadSettings();
+
+        ConfigurationSection settings = plugin.getConfigManager().getVouchersConfig().getConfigurationSection("settings");
+        bulkTickBudgetNanos = Math.max(0L, settings == null ? 2_000_000L : settings.getLong("bulk-tick-budget-nanos", 2_000_000L));
 
         ConfigurationSection config = plugin.getConfigManager().getVouchersConfig();
 
-        // Load each voucher type (levels, essence, money)
-        for (String section : new String[]{"levels", "essence", "money"}) {
+        // Every top-level section except settings is a voucher type
+        for (String section : config.getKeys(false)) {
             ConfigurationSection voucherSection = config.getConfigurationSection(section);
-            if (voucherSection != null) {
+            if (voucherSection != null && !section.equals("settings")) {
+                // "/gm voucher bulk ..." is the bulk give command, so a type with that name could never be given
+                if (section.equalsIgnoreCase("bulk")) {
+                    plugin.getLogger().warning("Voucher type " + section + " is a reserved name - voucher type skipped");
+                    continue;
+                }
+
                 VoucherData data = loadVoucherType(section, voucherSection);
                 if (data != null) {
                     voucherTypes.put(section, data);
+
+                    VoucherPrototype prototype = VoucherPrototype.compile(data);
+                    if (prototype != null) {
+                        prototypes.put(section, prototype);
+                    } else {
+                        plugin.getLogger().severe("Invalid voucher-material for voucher type " + section + ": " + data.getMaterial());
+                    }
                 }
             }
         }
 
         plugin.getLogger().info("Loaded " + voucherTypes.size() + " voucher types");
+        if (!placeholders.isAvailable()) {
+            plugin.getLogger().warning("PlaceholderAPI not found! Voucher conditions use their without-placeholderapi result.");
+        }
     }
 
     private VoucherData loadVoucherType(String type, ConfigurationSection config) {
@@ -57,40 +98,38 @@ public class VoucherManager {
             boolean stackable = config.getBoolean("stackable", false);
             boolean glow = config.getBoolean("glow", false);
 
-            // For money section, use none/not-none actions
-            ConfigurationSection noneAction = null;
-            ConfigurationSection notNoneAction = null;
-
-            if (type.equals("money")) {
-                noneAction = config.getConfigurationSection("none");
-                notNoneAction = config.getConfigurationSection("not-none");
+            VoucherCondition condition;
+            ConfigurationSection matchAction;
+            ConfigurationSection noMatchAction;
+            // What the condition is taken to return when PlaceholderAPI is not installed
+            boolean matchWithoutPlaceholderApi;
+            boolean noMatchActionOnConfirm = false;
+
+            if (config.isConfigurationSection("condition")) {
+                ConfigurationSection conditionConfig = config.getConfigurationSection("condition");
+                condition = VoucherCondition.compile(conditionConfig);
+                matchWithoutPlaceholderApi = conditionConfig.getBoolean("without-placeholderapi", false);
+                matchAction = config.getConfigurationSection("match-action");
+                noMatchAction = config.getConfigurationSection("no-match-action");
+            } else if (config.isConfigurationSection("none") || config.isConfigurationSection("not-none")) {
+                // Older none/not-none format: matches when the placeholder is "None"
+                condition = new VoucherCondition.Equals("None", true);
+                matchWithoutPlaceholderApi = true;
+                matchAction = config.getConfigurationSection("none");
+                noMatchAction = config.getConfigurationSection("not-none");
             } else {
-                // For other sections, use true/false actions
-                noneAction = config.getConfigurationSection("false-action");
-                notNoneAction = config.getConfigurationSection("true-action");
-            }
-
-            VoucherAction noneActionData = null;
-            VoucherAction notNoneActionData = null;
-
-            if (noneAction != null) {
-                noneActionData = new VoucherAction(
-                        noneAction.getBoolean("stop", false),
-                        noneAction.getString("stop-msg", ""),
-                        noneAction.getString("command", "")
-                );
+                // Older true-action/false-action format: matches when the placeholder is "true".
+                // Only checked on right-click; confirming has always run false-action.
+                condition = new VoucherCondition.Equals("true", true);
+                matchWithoutPlaceholderApi = false;
+                noMatchActionOnConfirm = true;
+                matchAction = config.getConfigurationSection("true-action");
+                noMatchAction = config.getConfigurationSection("false-action");
             }
 
-            if (notNoneAction != null) {
-                notNoneActionData = new VoucherAction(
-                        notNoneAction.getBoolean("stop", false),
-                        notNoneAction.getString("stop-msg", ""),
-                        notNoneAction.getString("command", "")
-                );
-            }
-
-            return new VoucherData(type, name, lore, material, texture, customModelData,
-                    placeholder, stackable, glow, notNoneActionData, noneActionData);
+            return new VoucherData(type, name, lore, material, texture, customModelData, placeholder, stackable, glow,
+                    condition, matchWithoutPlaceholderApi, loadAction(matchAction), loadAction(noMatchAction),
+                    noMatchActionOnConfirm);
 
         } catch (Exception e) {
             plugin.getLogger().severe("Error loading voucher type " + type + ": " + e.getMessage());
@@ -98,6 +137,34 @@ public class VoucherManager {
         }
     }
 
+    private VoucherAction loadAction(ConfigurationSection config) {
+        if (config == null) {
+            return null;
+        }
+        return new VoucherAction(
+                config.getBoolean("stop", false),
+                config.getString("stop-msg", ""),
+                config.getString("command", "")
+        );
+    }
+
+    // Configured voucher type name for the given name in any case, or null
+    public String matchVoucherType(String name) {
+        if (voucherTypes.containsKey(name)) {
+            return name;
+        }
+        for (String type : voucherTypes.keySet()) {
+            if (type.equalsIgnoreCase(name)) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    public Set<String> getVoucherTypeNames() {
+        return Collections.unmodifiableSet(voucherTypes.keySet());
+    }
+
     public void giveVoucher(CommandSender sender, Player player, String section, int time, double multiplier) {
         if (!voucherTypes.containsKey(section)) {
             plugin.getMessageManager().sendMessage(sender, "voucher.type-not-found");
@@ -129,44 +196,62 @@ public class VoucherManager {
     }
 
     private ItemStack createVoucher(VoucherData data, int time, double multiplier) {
-        try {
-            ConfigurationSection itemConfig = plugin.getConfigManager().getVouchersConfig().createSection("temp");
-
-            // Replace placeholders in name and lore
-            String name = data.getName()
-                    .replace("{time}", String.valueOf(time))
-                    .replace("{multiplier}", String.valueOf(multiplier));
-
-            String lore = data.getLore()
-                    .replace("{time}", String.valueOf(time))
-                    .replace("{multiplier}", String.valueOf(multiplier));
-
-            itemConfig.set("item-name", name);
-            itemConfig.set("lore", java.util.Arrays.asList(lore.split("\n")));
-            itemConfig.set("material", data.getMaterial());
-            itemConfig.set("texture", data.getTexture());
-            itemConfig.set("custom-model-data", data.getCustomModelData());
-            itemConfig.set("glow", data.isGlow());
-
-            // Create the voucher item
-            ItemStack voucher = ItemUtils.createCustomItem(itemConfig);
-            if (voucher != null) {
-                // Add voucher-specific data
-                ItemUtils.setVoucherData(voucher, data.getType(), String.valueOf(time), String.valueOf(multiplier));
+        ItemStack template = getVoucherTemplate(data, time, multiplier);
+        return template == null ? null : issueVoucher(template, data);
+    }
+
+    // Cached voucher without an id; never handed out itself
+    ItemStack getVoucherTemplate(VoucherData data, int time, double multiplier) {
+        VoucherPrototype prototype = prototypes.get(data.getType());
+        if (prototype == null) {
+            return null;
+        }
+
+        String key = data.getType() + ":" + time + ":" + multiplier;
+        ItemStack voucher = voucherCache.get(key);
+        if (voucher == null) {
+            try {
+                voucher = prototype.create(time, multiplier);
+            } catch (Exception e) {
+                plugin.getLogger().severe("Error creating voucher: " + e.getMessage());
+                return null;
             }
+            voucherCache.put(key, voucher);
+        }
+        return voucher;
+    }
 
-            // Clean up temp section
-            plugin.getConfigManager().getVouchersConfig().set("temp", null);
+    // A copy of the template, with its own id unless the voucher stacks
+    ItemStack issueVoucher(ItemStack template, VoucherData data) {
+        ItemStack issued = template.clone();
+        if (!data.isStackable()) {
+            ItemUtils.setVoucherId(issued, ThreadLocalRandom.current().nextLong());
+        }
+        return issued;
+    }
 
-            return voucher;
+    // Gives amount vouchers to every player, a few players per tick, and reports to the sender at the end
+    public void giveVoucherBulk(CommandSender sender, List<Player> players, String section, int time,
+                                double multiplier, int amount) {
+        VoucherData voucherData = voucherTypes.get(section);
+        if (voucherData == null) {
+            plugin.getMessageManager().sendMessage(sender, "voucher.type-not-found");
+            return;
+        }
 
-        } catch (Exception e) {
-            plugin.getLogger().severe("Error creating voucher: " + e.getMessage());
-            return null;
+        ItemStack template = getVoucherTemplate(voucherData, time, multiplier);
+        if (template == null) {
+            sender.sendMessage("§cError creating voucher!");
+            return;
         }
+
+        plugin.getMessageManager().sendMessage(sender, "voucher.bulk-started",
+                "type", section, "amount", String.valueOf(amount), "players", String.valueOf(players.size()));
+        new BulkVoucherTask(plugin, sender, players, voucherData, template, amount, bulkTickBudgetNanos)
+                .runTaskTimer(plugin, 1L, 1L);
     }
 
-    public boolean handleVoucherUse(Player player, ItemStack voucher) {
+    public boolean handleVoucherUse(Player player, ItemStack voucher, int slot) {
         try {
             // Check cooldown
             if (cooldowns.containsKey(player.getUniqueId())) {
@@ -184,65 +269,19 @@ public class VoucherManager {
 
             VoucherData data = voucherTypes.get(voucherType);
 
-            // Check placeholder condition with proper PlaceholderAPI parsing
-            if (plugin.getServer().getPluginManager().getPlugin("PlaceholderAPI") != null) {
-                String placeholder = data.getPlaceholder();
-
-                // Parse placeholders properly for the specific player
-                String parsedPlaceholder = PlaceholderAPI.setPlaceholders(player, placeholder);
-
-                // Double-check placeholder parsing - ensure it's working correctly
-                if (parsedPlaceholder.equals(placeholder)) {
-                    plugin.getLogger().warning("Placeholder might not be properly parsed for " + player.getName() + ": " + placeholder);
-
- }
-
-                boolean shouldStop = false;
-
-                // Different logic for money section vs others
-                if (voucherType.equals("money")) {
-                    // For money: check if parsed placeholder equals "None"
-                    boolean isNone = parsedPlaceholder.equalsIgnoreCase("None");
+            // A hold left by a confirmation menu closed without a choice ends here
+            placeholders.release(player.getUniqueId());
 
-                    if (isNone && data.getFalseAction() != null) {
-                        if (data.getFalseAction().isStop()) {
-                            player.sendMessage(ColorUtils.colorize(data.getFalseAction().getStopMsg()));
-                            shouldStop = true;
-                        }
-                    } else if (!isNone && data.getTrueAction() != null) {
-                        if (data.getTrueAction().isStop()) {
-                            player.sendMessage(ColorUtils.colorize(data.getTrueAction().getStopMsg()));
-                            shouldStop = true;
-                        }
-                    }
-                } else {
-                    // For other vouchers: check if parsed placeholder equals "true"
-                    boolean placeholderTrue = parsedPlaceholder.equalsIgnoreCase("true");
-
-                    plugin.getLogger().info("Voucher check for " + player.getName() + ": " + placeholder + " -> " + parsedPlaceholder + " -> " + placeholderTrue);
-
-                    if (placeholderTrue && data.getTrueAction() != null) {
-                        if (data.getTrueAction().isStop()) {
-                            player.sendMessage(ColorUtils.colorize(data.getTrueAction().getStopMsg()));
-                            shouldStop = true;
-                        }
-                    } else if (!placeholderTrue && data.getFalseAction() != null) {
-                        if (data.getFalseAction().isStop()) {
-                            player.sendMessage(ColorUtils.colorize(data.getFalseAction().getStopMsg()));
-                            shouldStop = true;
-                        }
-                    }
-                }
-
-                if (shouldStop) {
-                    return false;
-                }
-            } else {
-                plugin.getLogger().warning("PlaceholderAPI not found! Voucher placeholders will not work properly.");
+            // Check the voucher's condition; a stopping action blocks the use
+            VoucherAction action = selectAction(player, data);
+            if (action != null && action.isStop()) {
+                player.sendMessage(ColorUtils.colorize(action.getStopMsg()));
+                return false;
             }
 
-            // Open confirmation GUI
-            openConfirmationGUI(player, voucher, data);
+            // Open confirmation GUI; confirm reuses the placeholder values read above
+            openConfirmationGUI(player, voucher, slot);
+            placeholders.hold(player.getUniqueId());
 
             // Set cooldown
             cooldowns.put(player.getUniqueId(), System.currentTimeMillis());
@@ -255,58 +294,52 @@ public class VoucherManager {
         }
     }
 
-    private void openConfirmationGUI(Player player, ItemStack voucher, VoucherData data) {
-        Inventory gui = Bukkit.createInventory(player, 45, "§6Confirm Voucher Use");
+    // Evaluates the voucher's compiled condition against its placeholder for this player
+    private VoucherAction selectAction(Player player, VoucherData data) {
+        boolean matches;
+        if (placeholders.isAvailable()) {
+            // Cached until the voucher is redeemed
+            String parsedPlaceholder = placeholders.resolve(player, data.getPlaceholder());
+            if (!data.getPlaceholder().isEmpty() && parsedPlaceholder.equals(data.getPlaceholder())) {
+                plugin.getLogger().warning("Placeholder might not be properly parsed for " + player.getName() + ": " + data.getPlaceholder());
+            }
+            matches = data.getCondition().test(parsedPlaceholder);
+        } else {
+            matches = data.isMatchWithoutPlaceholderApi();
+        }
+        return matches ? data.getMatchAction() : data.getNoMatchAction();
+    }
+
+    private void openConfirmationGUI(Player player, ItemStack voucher, int slot) {
+        Inventory gui = plugin.getGuiManager().createMenu(GhastMenuHolder.MenuType.VOUCHER_CONFIRM);
+        ((GhastMenuHolder) gui.getHolder()).setSourceSlot(slot);
 
         // Lock player inventory - ONLY for voucher confirmation
-        plugin.getInventoryLockListener().lockInventory(player.getUniqueId());
+        plugin.getVoucherInventoryLock().lockInventory(player.getUniqueId());
 
         // Add voucher to center
         gui.setItem(22, voucher);
 
-        // Add confirm button (lime concrete)
-        ItemStack confirm = ItemUtils.createGuiItem(Material.LIME_CONCRETE,
-                plugin.getMessageManager().getMessage("gui.confirm") != null ?
-                        plugin.getMessageManager().getMessage("gui.confirm") : "§aConfirm",
-                plugin.getMessageManager().getMessage("gui.confirm-lore") != null ?
-                        plugin.getMessageManager().getMessage("gui.confirm-lore") : "§7Click to use voucher");
-        gui.setItem(20, confirm);
-
-        // Add cancel button (red concrete)
-        ItemStack cancel = ItemUtils.createGuiItem(Material.RED_CONCRETE,
-                plugin.getMessageManager().getMessage("gui.cancel") != null ?
-                        plugin.getMessageManager().getMessage("gui.cancel") : "§cCancel",
-                plugin.getMessageManager().getMessage("gui.cancel-lore") != null ?
-                        plugin.getMessageManager().getMessage("gui.cancel-lore") : "§7Click to cancel");
-        gui.setItem(24, cancel);
-
-        // Fill other slots with black stained glass panes
-        ItemStack filler = ItemUtils.createGuiItem(Material.BLACK_STAINED_GLASS_PANE, " ", "");
-        for (int i = 0; i < 45; i++) {
-            if (gui.getItem(i) == null) {
-                gui.setItem(i, filler);
-            }
-        }
-
         player.openInventory(gui);
     }
 
-    public void confirmVoucherUse(Player player, ItemStack voucher) {
+    public void confirmVoucherUse(Player player, ItemStack voucher, int sourceSlot) {
         // Unlock player inventory
-        plugin.getInventoryLockListener().unlockInventory(player.getUniqueId());
+        plugin.getVoucherInventoryLock().unlockInventory(player.getUniqueId());
 
         // Validate voucher before processing
-        if (!ItemUtils.isVoucher(voucher)) {
+        ItemUtils.VoucherInfo info = ItemUtils.readVoucher(voucher);
+        if (info == null) {
             plugin.getMessageManager().sendMessage(player, "voucher.invalid");
             player.closeInventory();
             return;
         }
 
-        String voucherType = ItemUtils.getVoucherType(voucher);
-        String timeStr = ItemUtils.getVoucherTime(voucher);
-        String multiplierStr = ItemUtils.getVoucherMultiplier(voucher);
+        String voucherType = info.getType();
+        String timeStr = info.getTime();
+        String multiplierStr = info.getMultiplier();
 
-        if (voucherType == null || timeStr == null || multiplierStr == null) {
+        if (timeStr == null || multiplierStr == null) {
             plugin.getMessageManager().sendMessage(player, "voucher.invalid-data");
             return;
         }
@@ -317,25 +350,20 @@ public class VoucherManager {
             return;
         }
 
-        // Execute the appropriate action based on voucher type
-        VoucherAction actionToExecute = null;
-
-        if (voucherType.equals("money")) {
-            // For money vouchers, check if placeholder result is "None"
-            if (plugin.getServer().getPluginManager().getPlugin("PlaceholderAPI") != null) {
-                String placeholder = data.getPlaceholder();
-                String parsedPlaceholder = PlaceholderAPI.setPlaceholders(player, placeholder);
-                boolean isNone = parsedPlaceholder.equalsIgnoreCase("None");
-
-                actionToExecute = isNone ? data.getFalseAction() : data.getTrueAction();
-            } else {
-                actionToExecute = data.getFalseAction(); // Default to none action if no PlaceholderAPI
-            }
+        VoucherAction actionToExecute;
+        if (data.isNoMatchActionOnConfirm()) {
+            actionToExecute = data.getNoMatchAction();
         } else {
-            // For other vouchers, use the not-none action (which is stored as falseAction)
-            actionToExecute = data.getFalseAction();
+            // Same result as on right-click while the cached value is held; read again if the cache is off
+            actionToExecute = selectAction(player, data);
+            if (actionToExecute != null && actionToExecute.isStop()) {
+                player.sendMessage(ColorUtils.colorize(actionToExecute.getStopMsg()));
+                player.closeInventory();
+                return;
+            }
         }
 
+        String finalCommand = null;
         if (actionToExecute != null && !actionToExecute.getCommand().isEmpty()) {
             String command = actionToExecute.getCommand()
                     .replace("%player_name%", player.getName())
@@ -358,64 +386,73 @@ public class VoucherManager {
             command = command.replace(timeStr, String.valueOf(timeInSeconds));
 
             // Parse PlaceholderAPI placeholders in command for the specific player
-            if (plugin.getServer().getPluginManager().getPlugin("PlaceholderAPI") != null) {
-                String originalCommand = command;
-                command = PlaceholderAPI.setPlaceholders(player, command);
-
-                // Log placeholder parsing for debugging
-                if (!originalCommand.equals(command)) {
-
-                }
-            }
+            finalCommand = placeholders.apply(player, command);
+        }
 
-            String finalCommand = command;
+        // Remove voucher from inventory before anything is granted
+        if (!removeVoucher(player, info, sourceSlot, data.isStackable())) {
+            plugin.getMessageManager().sendMessage(player, "voucher.error-finding");
+            player.closeInventory();
+            return;
+        }
 
+        if (finalCommand != null) {
+            String command = finalCommand;
+            UUID playerId = player.getUniqueId();
 
             Bukkit.getScheduler().runTask(plugin, () -> {
-                Bukkit.dispatchCommand(Bukkit.getConsoleSender(), finalCommand);
+                Bukkit.dispatchCommand(Bukkit.getConsoleSender(), command);
+                // The command changes what the condition placeholders return
+                placeholders.invalidate(playerId);
             });
         }
 
-        // Remove voucher from inventory
-        boolean removed = false;
-        for (int i = 0; i < player.getInventory().getSize(); i++) {
-            ItemStack invItem = player.getInventory().getItem(i);
-            if (invItem != null && ItemUtils.isVoucher(invItem)) {
-                String invVoucherType = ItemUtils.getVoucherType(invItem);
-                String invTimeStr = ItemUtils.getVoucherTime(invItem);
-                String invMultiplierStr = ItemUtils.getVoucherMultiplier(invItem);
-
-                // Check if this is the same voucher
-                if (voucherType.equals(invVoucherType) && timeStr.equals(invTimeStr) && multiplierStr.equals(invMultiplierStr)) {
-                    if (data.isStackable() && invItem.getAmount() > 1) {
-                        invItem.setAmount(invItem.getAmount() - 1);
-                    } else {
-                        player.getInventory().setItem(i, null);
-                    }
-                    removed = true;
-                    break;
-                }
-            }
+        plugin.getMessageManager().sendMessage(player, "voucher.used");
+        player.closeInventory();
+    }
+
+    // Takes one of the voucher from the slot it was used from, or the first matching stack if it
+    // moved; each candidate's meta is read once
+    private boolean removeVoucher(Player player, ItemUtils.VoucherInfo info, int sourceSlot, boolean stackable) {
+        PlayerInventory inventory = player.getInventory();
+
+        if (sourceSlot >= 0 && sourceSlot < inventory.getSize()
+                && info.isSameVoucher(ItemUtils.readVoucher(inventory.getItem(sourceSlot)))) {
+            takeOne(inventory, sourceSlot, stackable);
+            return true;
         }
 
-        if (!removed) {
-            plugin.getMessageManager().sendMessage(player, "voucher.error-finding");
-            player.closeInventory();
-            return;
+        for (int i = 0; i < inventory.getSize(); i++) {
+            if (i != sourceSlot && info.isSameVoucher(ItemUtils.readVoucher(inventory.getItem(i)))) {
+                takeOne(inventory, i, stackable);
+                return true;
+            }
         }
+        return false;
+    }
 
-        plugin.getMessageManager().sendMessage(player, "voucher.used");
-        player.closeInventory();
+    private void takeOne(PlayerInventory inventory, int slot, boolean stackable) {
+        ItemStack item = inventory.getItem(slot);
+        if (stackable && item.getAmount() > 1) {
+            item.setAmount(item.getAmount() - 1);
+        } else {
+            inventory.setItem(slot, null);
+        }
     }
 
     public void cancelVoucherUse(Player player) {
         // Unlock player inventory
-        plugin.getInventoryLockListener().unlockInventory(player.getUniqueId());
+        plugin.getVoucherInventoryLock().unlockInventory(player.getUniqueId());
+        placeholders.release(player.getUniqueId());
 
         plugin.getMessageManager().sendMessage(player, "voucher.cancelled");
         player.closeInventory();
     }
 
+    public void handleQuit(UUID playerId) {
+        placeholders.invalidate(playerId);
+    }
+
     public boolean isVoucher(ItemStack item) {
         return ItemUtils.isVoucher(item);
     }
@@ -431,12 +468,17 @@ public class VoucherManager {
         private final String placeholder;
         private final boolean stackable;
         private final boolean glow;
-        private final VoucherAction trueAction;
-        private final VoucherAction falseAction;
+        private final VoucherCondition condition;
+        private final boolean matchWithoutPlaceholderApi;
+        private final VoucherAction matchAction;
+        private final VoucherAction noMatchAction;
+        // Confirming skips the condition and runs noMatchAction (older true-action/false-action format)
+        private final boolean noMatchActionOnConfirm;
 
         public VoucherData(String type, String name, String lore, String material, String texture,
                            int customModelData, String placeholder, boolean stackable, boolean glow,
-                           VoucherAction trueAction, VoucherAction falseAction) {
+                           VoucherCondition condition, boolean matchWithoutPlaceholderApi,
+                           VoucherAction matchAction, VoucherAction noMatchAction, boolean noMatchActionOnConfirm) {
             this.type = type;
             this.name = name;
             this.lore = lore;
@@ -446,8 +488,11 @@ public class VoucherManager {
             this.placeholder = placeholder;
             this.stackable = stackable;
             this.glow = glow;
-            this.trueAction = trueAction;
-            this.falseAction = falseAction;
+            this.condition = condition;
+            this.matchWithoutPlaceholderApi = matchWithoutPlaceholderApi;
+            this.matchAction = matchAction;
+            this.noMatchAction = noMatchAction;
+            this.noMatchActionOnConfirm = noMatchActionOnConfirm;
         }
 
         // Getters
@@ -460,8 +505,11 @@ public class VoucherManager {
         public String getPlaceholder() { return placeholder; }
         public boolean isStackable() { return stackable; }
         public boolean isGlow() { return glow; }
-        public VoucherAction getTrueAction() { return trueAction; }
-        public VoucherAction getFalseAction() { return falseAction; }
+        public VoucherCondition getCondition() { return condition; }
+        public boolean isMatchWithoutPlaceholderApi() { return matchWithoutPlaceholderApi; }
+        public VoucherAction getMatchAction() { return matchAction; }
+        public VoucherAction getNoMatchAction() { return noMatchAction; }
+        public boolean isNoMatchActionOnConfirm() { return noMatchActionOnConfirm; }
     }
 
     public static class VoucherAction {
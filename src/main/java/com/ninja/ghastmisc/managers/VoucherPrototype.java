@@ -0,0 +1,168 @@
+package com.ninja.ghastmisc.managers;
+
+import com.ninja.ghastmisc.utils.ColorUtils;
+import com.ninja.ghastmisc.utils.ItemUtils;
+import org.bukkit.Material;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.inventory.ItemFlag;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.inventory.meta.SkullMeta;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// A voucher type compiled once per load: the base item (material, model data, skull texture, glow)
+// is built up front and the name and lore are pre-colorized with the {time} and {multiplier}
+// positions known, so issuing a voucher is a clone plus one meta write. Immutable.
+public final class VoucherPrototype {
+
+    // Vouchers always carried this custom item id; kept so new vouchers still stack with old ones
+    private static final String LEGACY_ITEM_ID = "temp";
+
+    private final String type;
+    private final ItemStack base;
+    private final TextTemplate name;
+    private final List<TextTemplate> lore;
+
+    private VoucherPrototype(String type, ItemStack base, TextTemplate name, List<TextTemplate> lore) {
+        this.type = type;
+        this.base = base;
+        this.name = name;
+        this.lore = lore;
+    }
+
+    // Null if the voucher's material is not a valid item
+    public static VoucherPrototype compile(VoucherManager.VoucherData data) {
+        Material material = Material.matchMaterial(data.getMaterial());
+        if (material == null || !material.isItem()) {
+            return null;
+        }
+
+        ItemStack base = new ItemStack(material);
+        ItemMeta meta = base.getItemMeta();
+        if (meta == null) {
+            return null;
+        }
+
+        if (data.getCustomModelData() > 0) {
+            meta.setCustomModelData(data.getCustomModelData());
+        }
+        if (material == Material.PLAYER_HEAD && meta instanceof SkullMeta
+                && data.getTexture() != null && !data.getTexture().isEmpty()) {
+            ItemUtils.setSkullTexture((SkullMeta) meta, data.getTexture());
+        }
+        if (data.isGlow()) {
+            meta.addEnchant(Enchantment.UNBREAKING, 1, true);
+            meta.addItemFlags(ItemFlag.HIDE_ENCHANTS);
+        }
+        ItemUtils.markCustomItem(meta, LEGACY_ITEM_ID);
+        base.setItemMeta(meta);
+
+        List<TextTemplate> lore = new ArrayList<>();
+        if (!data.getLore().isEmpty()) {
+            for (String line : data.getLore().split("\n", -1)) {
+                lore.add(TextTemplate.compile(line));
+            }
+        }
+
+        return new VoucherPrototype(data.getType(), base, TextTemplate.compile(data.getName()), lore);
+    }
+
+    public ItemStack create(int time, double multiplier) {
+        String timeValue = String.valueOf(time);
+        String multiplierValue = String.valueOf(multiplier);
+
+        ItemStack voucher = base.clone();
+        ItemMeta meta = voucher.getItemMeta();
+
+        String displayName = name.render(timeValue, multiplierValue);
+        if (!displayName.isEmpty()) {
+            meta.setDisplayName(displayName);
+        }
+        if (!lore.isEmpty()) {
+            List<String> lines = new ArrayList<>(lore.size());
+            for (TextTemplate line : lore) {
+                lines.add(line.render(timeValue, multiplierValue));
+            }
+            meta.setLore(lines);
+        }
+        ItemUtils.setVoucherData(meta, type, timeValue, multiplierValue);
+
+        voucher.setItemMeta(meta);
+        return voucher;
+    }
+
+    // A colorized line split around its {time} / {multiplier} parameters
+    private static final class TextTemplate {
+        private static final String TIME = "{time}";
+        private static final String MULTIPLIER = "{multiplier}";
+
+        // Literal parts around the parameters; parts.length == parameters.length + 1
+        private final String[] parts;
+        private final boolean[] isTime;
+        // Set when colorizing would break up a parameter (gradients, rainbow); rendered the slow way
+        private final String raw;
+
+        private TextTemplate(String[] parts, boolean[] isTime, String raw) {
+            this.parts = parts;
+            this.isTime = isTime;
+            this.raw = raw;
+        }
+
+        static TextTemplate compile(String line) {
+            int parameterCount = count(line, TIME) + count(line, MULTIPLIER);
+            String colorized = ColorUtils.colorize(line);
+            if (parameterCount > 0 && count(colorized, TIME) + count(colorized, MULTIPLIER) != parameterCount) {
+                return new TextTemplate(null, null, line);
+            }
+
+            List<String> parts = new ArrayList<>();
+            List<Boolean> isTime = new ArrayList<>();
+            int start = 0;
+            while (true) {
+                int time = colorized.indexOf(TIME, start);
+                int multiplier = colorized.indexOf(MULTIPLIER, start);
+                if (time == -1 && multiplier == -1) {
+                    break;
+                }
+
+                boolean nextIsTime = multiplier == -1 || (time != -1 && time < multiplier);
+                int at = nextIsTime ? time : multiplier;
+                parts.add(colorized.substring(start, at));
+                isTime.add(nextIsTime);
+                start = at + (nextIsTime ? TIME : MULTIPLIER).length();
+            }
+            parts.add(colorized.substring(start));
+
+            boolean[] flags = new boolean[isTime.size()];
+            for (int i = 0; i < flags.length; i++) {
+                flags[i] = isTime.get(i);
+            }
+            return new TextTemplate(parts.toArray(new String[0]), flags, null);
+        }
+
+        String render(String time, String multiplier) {
+            if (raw != null) {
+                return ColorUtils.colorize(raw.replace(TIME, time).replace(MULTIPLIER, multiplier));
+            }
+            if (isTime.length == 0) {
+                return parts[0];
+            }
+
+            StringBuilder builder = new StringBuilder(parts[0]);
+            for (int i = 0; i < isTime.length; i++) {
+                builder.append(isTime[i] ? time : multiplier).append(parts[i + 1]);
+            }
+            return builder.toString();
+        }
+
+        private static int count(String text, String token) {
+            int count = 0;
+            for (int i = text.indexOf(token); i != -1; i = text.indexOf(token, i + token.length())) {
+                count++;
+            }
+            return count;
+        }
+    }
+}
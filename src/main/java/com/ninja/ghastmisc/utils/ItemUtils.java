@@ -20,6 +20,7 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
 
 public class ItemUtils {
@@ -32,6 +33,11 @@ public class ItemUtils {
     private static NamespacedKey VOUCHER_TYPE_KEY;
     private static NamespacedKey VOUCHER_TIME_KEY;
     private static NamespacedKey VOUCHER_MULTIPLIER_KEY;
+    private static NamespacedKey VOUCHER_ID_KEY;
+
+    // Ingredient key prefixes - material names never contain ':' so keys can't collide
+    private static final String CUSTOM_KEY_PREFIX = "custom:";
+    private static final String RECIPE_KEY_PREFIX = "recipe:";
 
     public static void initialize(JavaPlugin plugin) {
         ItemUtils.plugin = plugin;
@@ -42,6 +48,7 @@ public class ItemUtils {
         VOUCHER_TYPE_KEY = new NamespacedKey(plugin, "voucher_type");
         VOUCHER_TIME_KEY = new NamespacedKey(plugin, "voucher_time");
         VOUCHER_MULTIPLIER_KEY = new NamespacedKey(plugin, "voucher_multiplier");
+        VOUCHER_ID_KEY = new NamespacedKey(plugin, "voucher_id");
     }
 
     public static ItemStack createCustomItem(ConfigurationSection config) {
@@ -117,9 +124,7 @@ public class ItemUtils {
             }
 
             // Add custom data using PersistentDataContainer
-            PersistentDataContainer container = meta.getPersistentDataContainer();
-            container.set(CUSTOM_ITEM_KEY, PersistentDataType.STRING, "true");
-            container.set(ITEM_ID_KEY, PersistentDataType.STRING, config.getName());
+            markCustomItem(meta, config.getName());
 
             item.setItemMeta(meta);
             return item;
@@ -132,6 +137,12 @@ public class ItemUtils {
         }
     }
 
+    public static void markCustomItem(ItemMeta meta, String itemId) {
+        PersistentDataContainer container = meta.getPersistentDataContainer();
+        container.set(CUSTOM_ITEM_KEY, PersistentDataType.STRING, "true");
+        container.set(ITEM_ID_KEY, PersistentDataType.STRING, itemId);
+    }
+
     public static ItemStack createCustomItemFromRecipe(ConfigurationSection config) {
         try {
             String materialName = config.getString("material", "STONE");
@@ -408,6 +419,39 @@ public class ItemUtils {
         return amount - remaining;
     }
 
+    // Inserts up to amount of item into a contents array like addItem would: existing stacks first,
+    // then empty slots. Changed slots get new copies, so a live inventory's items are never modified.
+    // Returns how many were placed.
+    public static int addToContents(ItemStack[] contents, ItemStack item, int amount) {
+        int maxStackSize = item.getMaxStackSize();
+        int remaining = amount;
+
+        for (int i = 0; i < contents.length && remaining > 0; i++) {
+            ItemStack slotItem = contents[i];
+            if (slotItem == null || slotItem.getAmount() >= maxStackSize || !isSimilar(slotItem, item)) {
+                continue;
+            }
+
+            int added = Math.min(remaining, maxStackSize - slotItem.getAmount());
+            contents[i] = slotItem.clone();
+            contents[i].setAmount(slotItem.getAmount() + added);
+            remaining -= added;
+        }
+
+        for (int i = 0; i < contents.length && remaining > 0; i++) {
+            if (contents[i] != null && contents[i].getType() != Material.AIR) {
+                continue;
+            }
+
+            int added = Math.min(remaining, maxStackSize);
+            contents[i] = item.clone();
+            contents[i].setAmount(added);
+            remaining -= added;
+        }
+
+        return amount - remaining;
+    }
+
     public static boolean hasInventorySpace(PlayerInventory inventory, ItemStack item) {
         if (item == null || item.getType() == Material.AIR) {
             return true;
@@ -522,6 +566,49 @@ public class ItemUtils {
         return container.get(ITEM_ID_KEY, PersistentDataType.STRING);
     }
 
+    // Key used to group items for crafting: custom ingredient id, recipe result id or plain material.
+    // Reads the item meta at most once and returns null for air or unidentified custom items.
+    public static String getIngredientKey(ItemStack item) {
+        if (item == null || item.getType().isAir()) {
+            return null;
+        }
+
+        // Plain stacks have no meta to clone
+        if (!item.hasItemMeta()) {
+            return vanillaKey(item.getType());
+        }
+
+        PersistentDataContainer container = item.getItemMeta().getPersistentDataContainer();
+
+        String customId = container.get(ITEM_ID_KEY, PersistentDataType.STRING);
+        if (customId != null) {
+            return customIngredientKey(customId);
+        }
+
+        String recipeId = container.get(RECIPE_ID_KEY, PersistentDataType.STRING);
+        if (recipeId != null) {
+            return recipeResultKey(recipeId);
+        }
+
+        if (container.has(CUSTOM_ITEM_KEY, PersistentDataType.STRING)) {
+            return null;
+        }
+
+        return vanillaKey(item.getType());
+    }
+
+    public static String vanillaKey(Material material) {
+        return material.name();
+    }
+
+    public static String customIngredientKey(String ingredientId) {
+        return CUSTOM_KEY_PREFIX + ingredientId;
+    }
+
+    public static String recipeResultKey(String recipeId) {
+        return RECIPE_KEY_PREFIX + recipeId;
+    }
+
     public static boolean isCustomRecipeResult(ItemStack item) {
         if (item == null || item.getItemMeta() == null) {
             return false;
@@ -543,14 +630,46 @@ public class ItemUtils {
     public static void setVoucherData(ItemStack item, String voucherType, String time, String multiplier) {
         ItemMeta meta = item.getItemMeta();
         if (meta != null) {
-            PersistentDataContainer container = meta.getPersistentDataContainer();
-            container.set(VOUCHER_TYPE_KEY, PersistentDataType.STRING, voucherType);
-            container.set(VOUCHER_TIME_KEY, PersistentDataType.STRING, time);
-            container.set(VOUCHER_MULTIPLIER_KEY, PersistentDataType.STRING, multiplier);
+            setVoucherData(meta, voucherType, time, multiplier);
             item.setItemMeta(meta);
         }
     }
 
+    // For callers that already hold the meta, so it is only copied once
+    public static void setVoucherData(ItemMeta meta, String voucherType, String time, String multiplier) {
+        PersistentDataContainer container = meta.getPersistentDataContainer();
+        container.set(VOUCHER_TYPE_KEY, PersistentDataType.STRING, voucherType);
+        container.set(VOUCHER_TIME_KEY, PersistentDataType.STRING, time);
+        container.set(VOUCHER_MULTIPLIER_KEY, PersistentDataType.STRING, multiplier);
+    }
+
+    // Unique per issued voucher; only non-stackable vouchers get one, since it stops stacking
+    public static void setVoucherId(ItemStack item, long voucherId) {
+        ItemMeta meta = item.getItemMeta();
+        if (meta != null) {
+            meta.getPersistentDataContainer().set(VOUCHER_ID_KEY, PersistentDataType.LONG, voucherId);
+            item.setItemMeta(meta);
+        }
+    }
+
+    // All voucher data from a single meta read, or null if the item is not a voucher
+    public static VoucherInfo readVoucher(ItemStack item) {
+        if (item == null || !item.hasItemMeta()) {
+            return null;
+        }
+
+        PersistentDataContainer container = item.getItemMeta().getPersistentDataContainer();
+        String type = container.get(VOUCHER_TYPE_KEY, PersistentDataType.STRING);
+        if (type == null) {
+            return null;
+        }
+
+        return new VoucherInfo(type,
+                container.get(VOUCHER_TIME_KEY, PersistentDataType.STRING),
+                container.get(VOUCHER_MULTIPLIER_KEY, PersistentDataType.STRING),
+                container.get(VOUCHER_ID_KEY, PersistentDataType.LONG));
+    }
+
     public static String getVoucherType(ItemStack item) {
         if (item == null || item.getItemMeta() == null) {
             return null;
@@ -586,4 +705,36 @@ public class ItemUtils {
         PersistentDataContainer container = item.getItemMeta().getPersistentDataContainer();
         return container.has(VOUCHER_TYPE_KEY, PersistentDataType.STRING);
     }
-}
\ No newline at end of file
+
+    public static final class VoucherInfo {
+        private final String type;
+        private final String time;
+        private final String multiplier;
+        // Null for stackable vouchers and ones issued before ids existed
+        private final Long id;
+
+        private VoucherInfo(String type, String time, String multiplier, Long id) {
+            this.type = type;
+            this.time = time;
+            this.multiplier = multiplier;
+            this.id = id;
+        }
+
+        public String getType() { return type; }
+        public String getTime() { return time; }
+        public String getMultiplier() { return multiplier; }
+        public Long getId() { return id; }
+
+        // Same issued voucher if both carry an id, otherwise same type, time and multiplier
+        public boolean isSameVoucher(VoucherInfo other) {
+            if (other == null) {
+                return false;
+            }
+            if (id != null || other.id != null) {
+                return id != null && id.equals(other.id);
+            }
+            return type.equals(other.type) && Objects.equals(time, other.time)
+                    && Objects.equals(multiplier, other.multiplier);
+        }
+    }
+}